@@ -16,7 +16,7 @@ import org.revapi.Archive;
  * @author Lukas Krejci
  * @since 0.2
  */
-final class FileArchive implements Archive {
+final class FileArchive implements Archive.FileBacked {
 
     public static FileArchive[] from(FileSet fileSet) {
         if (fileSet == null) {
@@ -51,6 +51,12 @@ final class FileArchive implements Archive {
         return new FileInputStream(file);
     }
 
+    @Nonnull
+    @Override
+    public File getFile() {
+        return file;
+    }
+
     private static File[] scanFileSet(FileSet fs) {
         Project prj = fs.getProject();
         DirectoryScanner scanner = fs.getDirectoryScanner(prj);
@@ -2,6 +2,7 @@ package org.revapi.basic;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -40,6 +41,15 @@ public abstract class AbstractDifferenceReferringTransform<Recipe extends Differ
         return codes;
     }
 
+    /**
+     * @return the recipes as configured, empty if the transform is not initialized yet
+     * @since 0.6.4
+     */
+    @Nonnull
+    protected Collection<Recipe> getConfiguredRecipes() {
+        return configuredRecipes == null ? Collections.emptyList() : configuredRecipes;
+    }
+
     @Nullable
     protected abstract ConfigContext initConfiguration();
 
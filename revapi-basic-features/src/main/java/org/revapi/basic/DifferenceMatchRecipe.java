@@ -120,6 +120,20 @@ public abstract class DifferenceMatchRecipe {
         }
     }
 
+    /**
+     * @param code the difference code
+     * @return true if this recipe matches all the differences with the code, no matter the elements they are found on
+     * or their attachments
+     * @since 0.6.4
+     */
+    public boolean matchesAll(String code) {
+        if (oldElement != null || newElement != null || !attachments.isEmpty()) {
+            return false;
+        }
+
+        return regex ? codeRegex.matcher(code).matches() : this.code.equals(code);
+    }
+
     public abstract Difference transformMatching(Difference difference, Element oldElement,
         Element newElement);
 
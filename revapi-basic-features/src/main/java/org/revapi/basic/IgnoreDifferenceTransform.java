@@ -97,6 +97,11 @@ public class IgnoreDifferenceTransform
         return new IgnoreRecipe(config);
     }
 
+    @Override
+    public boolean isDiscardingAll(@Nonnull String code) {
+        return getConfiguredRecipes().stream().anyMatch(r -> r.matchesAll(code));
+    }
+
     @Override
     public void close() {
     }
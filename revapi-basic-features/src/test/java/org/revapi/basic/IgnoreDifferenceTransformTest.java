@@ -156,5 +156,28 @@ public class IgnoreDifferenceTransformTest {
         }
     }
 
+    @Test
+    public void testDiscardingAll() throws Exception {
+        try (IgnoreDifferenceTransform t = new IgnoreDifferenceTransform()) {
+
+            AnalysisContext config = getAnalysisContextFromFullConfig(IgnoreDifferenceTransform.class,
+                    "[{\"extension\": \"revapi.ignore\", \"configuration\": [" +
+                            "{\"code\":\"c\", \"justification\" : \"because\"}," +
+                            "{\"regex\": true, \"code\":\"d.*\", \"justification\" : \"because\"}," +
+                            "{\"code\":\"e\", \"old\": \"a\", \"justification\" : \"because\"}," +
+                            "{\"code\":\"f\", \"kachna\": \"dobra\", \"justification\" : \"because\"}" +
+                            "]}]");
+
+            t.initialize(config);
+
+            Assert.assertTrue(t.isDiscardingAll("c"));
+            Assert.assertTrue(t.isDiscardingAll("d"));
+            Assert.assertTrue(t.isDiscardingAll("dd"));
+            Assert.assertFalse(t.isDiscardingAll("e"));
+            Assert.assertFalse(t.isDiscardingAll("f"));
+            Assert.assertFalse(t.isDiscardingAll("g"));
+        }
+    }
+
     //TODO add tests for old and new element matching
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares finding out which archive contains which class, as the java extension does with the supplementary
+ * archives, with computing the SHA-256 digests of the archives, which would be needed to key a persistent cache of
+ * that mapping.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveIndexBenchmark {
+
+    /**
+     * The archives to index, separated by the path separator. If empty, the archive containing the Revapi classes
+     * is used, see {@link JavaForest#JavaForest(String)}.
+     */
+    @Param({""})
+    public String archives;
+
+    private final List<File> files = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        if (archives.isEmpty()) {
+            files.add(JavaForest.defaultArchive());
+        } else {
+            for (String path : archives.split(File.pathSeparator)) {
+                File file = new File(path);
+                if (!file.isFile()) {
+                    throw new IllegalArgumentException("Archive " + file + " does not exist or is not a file.");
+                }
+                files.add(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, File> indexClasses() throws IOException {
+        Map<String, File> ret = new HashMap<>();
+        for (File f : files) {
+            try (ZipFile zip = new ZipFile(f)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.endsWith(".class")) {
+                        ret.putIfAbsent(name, f);
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Benchmark
+    public void digest(Blackhole bh) throws IOException, NoSuchAlgorithmException {
+        byte[] buffer = new byte[64 * 1024];
+        for (File f : files) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new FileInputStream(f)) {
+                int cnt;
+                while ((cnt = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, cnt);
+                }
+            }
+            bh.consume(digest.digest());
+        }
+    }
+}
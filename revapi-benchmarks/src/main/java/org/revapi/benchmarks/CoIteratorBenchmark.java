@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.revapi.CoIterator;
+
+/**
+ * Measures the merging of two sorted collections, which is what the analysis does with the children of each pair of
+ * corresponding elements.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CoIteratorBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    /**
+     * The fraction of the elements present in both collections.
+     */
+    @Param({"0", "0.5", "1"})
+    public double overlap;
+
+    private List<String> left;
+    private List<String> right;
+
+    @Setup
+    public void setup() {
+        left = new ArrayList<>(size);
+        right = new ArrayList<>(size);
+
+        int common = (int) (size * overlap);
+        for (int i = 0; i < size; ++i) {
+            left.add(String.format("e%08d", i));
+            right.add(String.format(i < common ? "e%08d" : "f%08d", i));
+        }
+    }
+
+    @Benchmark
+    public void coIterate(Blackhole bh) {
+        CoIterator<String> it = new CoIterator<>(left.iterator(), right.iterator());
+        while (it.hasNext()) {
+            it.next();
+            bh.consume(it.getLeft());
+            bh.consume(it.getRight());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.revapi.CorrespondenceComparatorDeducer;
+import org.revapi.Element;
+import org.revapi.java.JavaApiAnalyzer;
+import org.revapi.java.model.MethodElement;
+import org.revapi.java.model.TypeElement;
+
+/**
+ * Measures the correspondence deducer of the java extension, which matches the overloaded methods of the old and new
+ * versions of each type. The old and new versions are two separate analyses of the same archive.
+ *
+ * <p>The children are copied for each invocation of the deducer, because it reorders them.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrespondenceDeducerBenchmark {
+
+    /**
+     * The archive to analyze, see {@link JavaForest#JavaForest(String)}.
+     */
+    @Param({""})
+    public String archive;
+
+    private JavaForest oldForest;
+    private JavaForest newForest;
+    private CorrespondenceComparatorDeducer deducer;
+    private final List<List<Element>> oldChildren = new ArrayList<>();
+    private final List<List<Element>> newChildren = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        oldForest = new JavaForest(archive);
+        newForest = new JavaForest(archive);
+
+        Map<String, TypeElement> newTypes = new HashMap<>();
+        for (TypeElement t : newForest.getForest().search(TypeElement.class, true, null, null)) {
+            newTypes.put(t.getBinaryName(), t);
+        }
+
+        for (TypeElement oldType : oldForest.getForest().search(TypeElement.class, true, null, null)) {
+            TypeElement newType = newTypes.get(oldType.getBinaryName());
+            if (newType == null || !hasMethods(oldType)) {
+                continue;
+            }
+
+            oldChildren.add(new ArrayList<>(oldType.getChildren()));
+            newChildren.add(new ArrayList<>(newType.getChildren()));
+        }
+
+        deducer = new JavaApiAnalyzer(Collections.emptyList()).getCorrespondenceDeducer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        oldForest.close();
+        newForest.close();
+    }
+
+    @Benchmark
+    public void deduceCorrespondence(Blackhole bh) {
+        for (int i = 0; i < oldChildren.size(); ++i) {
+            List<Element> l1 = new ArrayList<>(oldChildren.get(i));
+            List<Element> l2 = new ArrayList<>(newChildren.get(i));
+
+            bh.consume(deducer.sortAndGetCorrespondenceComparator(l1, l2));
+        }
+    }
+
+    private static boolean hasMethods(TypeElement type) {
+        for (Element e : type.getChildren()) {
+            if (e instanceof MethodElement) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
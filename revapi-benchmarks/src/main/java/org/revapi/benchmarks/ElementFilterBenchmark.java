@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.revapi.AnalysisContext;
+import org.revapi.AnalysisResult;
+import org.revapi.Element;
+import org.revapi.ElementFilter;
+import org.revapi.Revapi;
+import org.revapi.basic.ConfigurableElementFilter;
+import org.revapi.java.filters.AnnotatedElementFilter;
+
+/**
+ * Measures the element filters on all the elements of a real archive, the same way the analysis consults them for
+ * each element.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElementFilterBenchmark {
+
+    /**
+     * The archive to analyze, see {@link JavaForest#JavaForest(String)}.
+     */
+    @Param({""})
+    public String archive;
+
+    private JavaForest forest;
+    private List<Element> elements;
+    private ElementFilter configurableFilter;
+    private ElementFilter annotatedFilter;
+
+    @Setup
+    public void setup() {
+        forest = new JavaForest(archive);
+        elements = forest.getForest().search(Element.class, true, null, null);
+
+        @SuppressWarnings("unchecked")
+        Revapi revapi = new Revapi(new HashSet<>(), new HashSet<>(), new HashSet<>(),
+                new HashSet<>(Arrays.asList(ConfigurableElementFilter.class, AnnotatedElementFilter.class)));
+
+        AnalysisContext ctx = AnalysisContext.builder(revapi).withConfigurationFromJSON("{\"revapi\": {" +
+                "\"filter\": {\"elements\": {" +
+                "\"include\": [\".*org\\\\.revapi\\\\..*\", \".*javax?\\\\..*\"]," +
+                "\"exclude\": [\".*\\\\.internal\\\\..*\", \".*Impl\\\\b.*\"]}}," +
+                "\"java\": {\"filter\": {\"annotated\": {" +
+                "\"exclude\": [\"@java.lang.Deprecated\"]}}}}}").build();
+
+        AnalysisResult.Extensions extensions = revapi.prepareAnalysis(ctx);
+
+        configurableFilter = new ConfigurableElementFilter();
+        configurableFilter.initialize(extensions.getFirstConfigurationOrNull(ConfigurableElementFilter.class));
+
+        annotatedFilter = new AnnotatedElementFilter();
+        annotatedFilter.initialize(extensions.getFirstConfigurationOrNull(AnnotatedElementFilter.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        forest.close();
+    }
+
+    @Benchmark
+    public void configurableElementFilter(Blackhole bh) {
+        filter(configurableFilter, bh);
+    }
+
+    @Benchmark
+    public void annotatedElementFilter(Blackhole bh) {
+        filter(annotatedFilter, bh);
+    }
+
+    private void filter(ElementFilter filter, Blackhole bh) {
+        for (Element e : elements) {
+            bh.consume(filter.applies(e));
+            bh.consume(filter.shouldDescendInto(e));
+        }
+    }
+}
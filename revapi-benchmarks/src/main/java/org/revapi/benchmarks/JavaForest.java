@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnull;
+
+import org.revapi.API;
+import org.revapi.Archive;
+import org.revapi.Revapi;
+import org.revapi.java.AnalysisConfiguration;
+import org.revapi.java.JavaArchiveAnalyzer;
+import org.revapi.java.compilation.InclusionFilter;
+import org.revapi.java.model.JavaElementForest;
+
+/**
+ * The element forest of a real archive to run the benchmarks of the java extension on. The compiler backing the forest
+ * is kept alive until this is closed.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+final class JavaForest implements AutoCloseable {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final JavaArchiveAnalyzer analyzer;
+    private final JavaElementForest forest;
+
+    /**
+     * @param archivePath the path to the archive to analyze. If empty, the archive containing the Revapi classes
+     *                    is used, which, in case of the benchmarks uber jar, is the uber jar itself.
+     */
+    JavaForest(String archivePath) {
+        File file = archivePath.isEmpty() ? defaultArchive() : new File(archivePath);
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("Archive " + file + " does not exist or is not a file.");
+        }
+
+        API api = new API(Collections.singletonList(new FileArchive(file)), null);
+
+        analyzer = new JavaArchiveAnalyzer(api, executor, AnalysisConfiguration.MissingClassReporting.REPORT, false,
+                InclusionFilter.acceptAll());
+
+        forest = analyzer.analyze();
+    }
+
+    JavaElementForest getForest() {
+        return forest;
+    }
+
+    @Override
+    public void close() {
+        analyzer.getCompilationValve().removeCompiledResults();
+        executor.shutdown();
+    }
+
+    static File defaultArchive() {
+        try {
+            return new File(Revapi.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Failed to determine the location of the Revapi classes.", e);
+        }
+    }
+
+    private static final class FileArchive implements Archive {
+        private final File file;
+
+        FileArchive(File file) {
+            this.file = file;
+        }
+
+        @Nonnull
+        @Override
+        public String getName() {
+            return file.getName();
+        }
+
+        @Nonnull
+        @Override
+        public InputStream openStream() throws IOException {
+            return new FileInputStream(file);
+        }
+    }
+}
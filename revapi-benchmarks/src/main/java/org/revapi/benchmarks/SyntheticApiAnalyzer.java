@@ -0,0 +1,228 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.jboss.dmr.ModelNode;
+import org.revapi.API;
+import org.revapi.AnalysisContext;
+import org.revapi.ApiAnalyzer;
+import org.revapi.Archive;
+import org.revapi.ArchiveAnalyzer;
+import org.revapi.CorrespondenceComparatorDeducer;
+import org.revapi.DifferenceAnalyzer;
+import org.revapi.Element;
+import org.revapi.ElementForest;
+import org.revapi.Report;
+import org.revapi.simple.SimpleElement;
+import org.revapi.simple.SimpleElementForest;
+
+/**
+ * An API analyzer that doesn't read the archives at all. It produces the same forest of the configured size for both
+ * APIs and reports a difference for each pair of elements. This makes it possible to measure the overhead of the
+ * analysis itself and of the transforms and reporters.
+ *
+ * <p>The configuration looks like this:
+ * <pre><code>
+ * {
+ *     "revapi": {
+ *         "benchmarks": {
+ *             "synthetic": {
+ *                 "roots": 100,
+ *                 "children": 10,
+ *                 "codes": 50
+ *             }
+ *         }
+ *     }
+ * }
+ * </code></pre>
+ *
+ * <p>The differences have codes {@code bench.code0} up to {@code bench.code<codes - 1>}, distributed evenly among the
+ * elements.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+public final class SyntheticApiAnalyzer implements ApiAnalyzer {
+    static final String EXTENSION_ID = "revapi.benchmarks.synthetic";
+
+    private int roots;
+    private int children;
+    private int codes;
+
+    /**
+     * @return an archive that can serve as a placeholder in the APIs, because this analyzer never reads it
+     */
+    static Archive placeholderArchive() {
+        return new Archive() {
+            @Nonnull
+            @Override
+            public String getName() {
+                return "synthetic.jar";
+            }
+
+            @Nonnull
+            @Override
+            public InputStream openStream() throws IOException {
+                throw new IOException("The synthetic archive has no contents.");
+            }
+        };
+    }
+
+    @Override
+    public @Nonnull CorrespondenceComparatorDeducer getCorrespondenceDeducer() {
+        return CorrespondenceComparatorDeducer.naturalOrder();
+    }
+
+    @Override
+    public @Nonnull ArchiveAnalyzer getArchiveAnalyzer(@Nonnull API api) {
+        return () -> {
+            SimpleElementForest ret = new SimpleElementForest(api) {};
+            @SuppressWarnings("unchecked")
+            SortedSet<Element> rs = (SortedSet<Element>) (SortedSet<?>) ret.getRoots();
+
+            int id = 0;
+            for (int i = 0; i < roots; ++i) {
+                SyntheticElement root = new SyntheticElement(api, id++);
+                @SuppressWarnings("unchecked")
+                SortedSet<Element> cs = (SortedSet<Element>) root.getChildren();
+                for (int j = 0; j < children; ++j) {
+                    cs.add(new SyntheticElement(api, id++));
+                }
+                rs.add(root);
+            }
+
+            return ret;
+        };
+    }
+
+    @Override
+    public @Nonnull DifferenceAnalyzer getDifferenceAnalyzer(@Nonnull ArchiveAnalyzer oldArchive,
+                                                             @Nonnull ArchiveAnalyzer newArchive) {
+        return new DifferenceAnalyzer() {
+            @Override
+            public void open() {
+            }
+
+            @Override
+            public void beginAnalysis(@Nullable Element oldElement, @Nullable Element newElement) {
+            }
+
+            @Override
+            public Report endAnalysis(@Nullable Element oldElement, @Nullable Element newElement) {
+                int id = ((SyntheticElement) (oldElement == null ? newElement : oldElement)).id;
+
+                return Report.builder().withOld(oldElement).withNew(newElement).addProblem()
+                        .withCode("bench.code" + (id % codes)).done().build();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public @Nullable String getExtensionId() {
+        return EXTENSION_ID;
+    }
+
+    @Override
+    public @Nullable Reader getJSONSchema() {
+        return null;
+    }
+
+    @Override
+    public void initialize(@Nonnull AnalysisContext analysisContext) {
+        ModelNode config = analysisContext.getConfiguration();
+        roots = config.get("roots").asInt(100);
+        children = config.get("children").asInt(10);
+        codes = config.get("codes").asInt(50);
+    }
+
+    /**
+     * Counts the reported differences so that the analysis has an observable result.
+     */
+    public static final class CountingReporter implements org.revapi.Reporter {
+        static final LongAdder REPORTED = new LongAdder();
+
+        @Override
+        public void report(@Nonnull Report report) {
+            REPORTED.add(report.getDifferences().size());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public @Nullable String getExtensionId() {
+            return null;
+        }
+
+        @Override
+        public @Nullable Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
+
+    private static final class SyntheticElement extends SimpleElement {
+        private final API api;
+        private final int id;
+
+        SyntheticElement(API api, int id) {
+            this.api = api;
+            this.id = id;
+        }
+
+        @Override
+        public @Nonnull API getApi() {
+            return api;
+        }
+
+        @Override
+        public @Nullable Archive getArchive() {
+            return null;
+        }
+
+        @Override
+        public int compareTo(Element o) {
+            return Integer.compare(id, ((SyntheticElement) o).id);
+        }
+
+        @Override
+        public String toString() {
+            return "element" + id;
+        }
+    }
+}
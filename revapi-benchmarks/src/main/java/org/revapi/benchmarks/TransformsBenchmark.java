@@ -0,0 +1,141 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.revapi.API;
+import org.revapi.AnalysisContext;
+import org.revapi.AnalysisResult;
+import org.revapi.Revapi;
+import org.revapi.basic.IgnoreDifferenceTransform;
+
+/**
+ * Measures the transformation and reporting of the differences, i.e. {@code Revapi.transformAndReport}, with many
+ * configured transforms. The differences are produced by the {@link SyntheticApiAnalyzer}, so the rest of the analysis
+ * is as cheap as possible.
+ *
+ * <p>The transforms are instances of the ignore transform, each configured with a number of ignored difference codes.
+ * Only some of the ignored codes are actually reported by the analyzer and at most the upper half of the reported codes
+ * is ignored.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformsBenchmark {
+
+    /**
+     * The number of the differences is {@code roots * (children + 1)}.
+     */
+    @Param({"1000"})
+    public int roots;
+
+    @Param({"10"})
+    public int children;
+
+    /**
+     * The number of distinct difference codes reported by the analyzer.
+     */
+    @Param({"50"})
+    public int codes;
+
+    @Param({"1", "10", "100"})
+    public int transforms;
+
+    @Param({"10"})
+    public int codesPerTransform;
+
+    private Revapi revapi;
+    private AnalysisContext context;
+
+    @Setup
+    public void setup() {
+        revapi = Revapi.builder().withAnalyzers(SyntheticApiAnalyzer.class)
+                .withTransforms(IgnoreDifferenceTransform.class)
+                .withReporters(SyntheticApiAnalyzer.CountingReporter.class).build();
+
+        ModelNode config = new ModelNode();
+        config.setEmptyList();
+
+        ModelNode analyzer = new ModelNode();
+        analyzer.get("extension").set(SyntheticApiAnalyzer.EXTENSION_ID);
+        analyzer.get("configuration", "roots").set(roots);
+        analyzer.get("configuration", "children").set(children);
+        analyzer.get("configuration", "codes").set(codes);
+        config.add(analyzer);
+
+        int code = 0;
+        for (int t = 0; t < transforms; ++t) {
+            ModelNode ignore = new ModelNode();
+            ignore.get("extension").set("revapi.ignore");
+            ignore.get("id").set("ignore" + t);
+
+            ModelNode recipes = ignore.get("configuration");
+            recipes.setEmptyList();
+            for (int i = 0; i < codesPerTransform; ++i) {
+                //the codes in the lower half of the reported ones are never ignored and many of the ignored codes
+                //are never reported
+                ModelNode recipe = new ModelNode();
+                recipe.get("code").set("bench.code" + (codes / 2 + code++ % (2 * codes)));
+                recipe.get("justification").set("benchmark");
+                recipes.add(recipe);
+            }
+
+            //and a regex that never matches
+            ModelNode recipe = new ModelNode();
+            recipe.get("regex").set(true);
+            recipe.get("code").set("bench\\.other" + t + "\\..*");
+            recipe.get("justification").set("benchmark");
+            recipes.add(recipe);
+
+            config.add(ignore);
+        }
+
+        API api = API.of(SyntheticApiAnalyzer.placeholderArchive()).build();
+
+        context = AnalysisContext.builder(revapi).withOldAPI(api).withNewAPI(api).withConfiguration(config).build();
+    }
+
+    @Benchmark
+    public long analyze() throws Exception {
+        try (AnalysisResult result = revapi.analyze(context)) {
+            if (!result.isSuccess()) {
+                throw result.getFailure();
+            }
+        }
+
+        return SyntheticApiAnalyzer.CountingReporter.REPORTED.sum();
+    }
+}
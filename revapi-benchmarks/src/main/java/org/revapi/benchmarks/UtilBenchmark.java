@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.type.TypeMirror;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.revapi.java.spi.JavaModelElement;
+import org.revapi.java.spi.Util;
+
+/**
+ * Measures the string representations of the types of all the java elements (types, methods, fields and method
+ * parameters) of a real archive.
+ *
+ * @author Lukas Krejci
+ * @since 0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UtilBenchmark {
+
+    /**
+     * The archive to analyze, see {@link JavaForest#JavaForest(String)}.
+     */
+    @Param({""})
+    public String archive;
+
+    private JavaForest forest;
+    private final List<TypeMirror> types = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        forest = new JavaForest(archive);
+        for (JavaModelElement e : forest.getForest().search(JavaModelElement.class, true, null, null)) {
+            types.add(e.getModelRepresentation());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        forest.close();
+    }
+
+    @Benchmark
+    public void toUniqueString(Blackhole bh) {
+        for (TypeMirror t : types) {
+            bh.consume(Util.toUniqueString(t));
+        }
+    }
+
+    @Benchmark
+    public void toHumanReadableString(Blackhole bh) {
+        for (TypeMirror t : types) {
+            bh.consume(Util.toHumanReadableString(t));
+        }
+    }
+}
@@ -87,6 +87,20 @@ public interface Check extends Configurable {
      */
     EnumSet<Type> getInterest();
 
+    /**
+     * Advertises the codes of the differences this check can report. If the analysis is configured such that all the
+     * differences with these codes are discarded, the check is not used at all.
+     *
+     * <p>The default implementation returns null, meaning that the codes are not known and the check is always used.
+     *
+     * @return the set of the codes of the differences this instance can report or null if not known
+     * @since 0.14.1
+     */
+    @Nullable
+    default EnumSet<Code> getProducedCodes() {
+        return null;
+    }
+
     /**
      * Each of the other visit* calls is followed by a corresponding call to this method in a stack-like
      * manner.
@@ -16,8 +16,12 @@
 
 package org.revapi.java.spi;
 
+import java.util.List;
+
 import javax.annotation.Nonnull;
+import javax.lang.model.AnnotatedConstruct;
 import javax.lang.model.element.Element;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
@@ -71,4 +75,72 @@ public interface TypeEnvironment {
      * @return true if the the user explicitly excluded this element from the API checks, false otherwise.
      */
     boolean isExplicitlyExcluded(Element element);
+
+    /**
+     * Same as {@link Util#toUniqueString(TypeMirror)} but the implementations may cache the results for the types of
+     * this environment. The checks comparing many types should prefer this method.
+     *
+     * @param type the type to convert to string
+     * @return the string representation of the type that is fit for equality comparisons
+     * @since 0.14.1
+     */
+    @Nonnull
+    default String toUniqueString(@Nonnull TypeMirror type) {
+        return Util.toUniqueString(type);
+    }
+
+    /**
+     * Same as {@link Util#toHumanReadableString(AnnotatedConstruct)} but the implementations may cache the results for
+     * the types and elements of this environment.
+     *
+     * @param construct the type or element to convert to string
+     * @return the human readable representation of the type or element
+     * @since 0.14.1
+     */
+    @Nonnull
+    default String toHumanReadableString(@Nonnull AnnotatedConstruct construct) {
+        return Util.toHumanReadableString(construct);
+    }
+
+    /**
+     * Same as {@link Util#getAllSuperClasses(Types, TypeMirror)} but the implementations may cache the results for
+     * the types of this environment.
+     *
+     * @param type the type to find the super classes of
+     * @return the super classes of the type, starting with the direct super class. The list must not be modified.
+     * @since 0.14.1
+     */
+    @Nonnull
+    default List<TypeMirror> getAllSuperClasses(@Nonnull TypeMirror type) {
+        return Util.getAllSuperClasses(getTypeUtils(), type);
+    }
+
+    /**
+     * Same as {@link Util#getAllSuperInterfaces(Types, TypeMirror)} but the implementations may cache the results for
+     * the types of this environment.
+     *
+     * @param type the type to find the super interfaces of
+     * @return all the interfaces the type implements or extends, directly or indirectly. The list must not be
+     * modified.
+     * @since 0.14.1
+     */
+    @Nonnull
+    default List<TypeMirror> getAllSuperInterfaces(@Nonnull TypeMirror type) {
+        return Util.getAllSuperInterfaces(getTypeUtils(), type);
+    }
+
+    /**
+     * Same as {@link Util#isSubtype(TypeMirror, List, Types)} with the type utils of this environment, but the
+     * implementations may precompute the set of the (unique strings of the) type and all its super types, so that
+     * checking each of the supposed super types is a single lookup. As with the {@code Util} method, the supposed
+     * super types may come from another environment.
+     *
+     * @param type the type of this environment to check
+     * @param superTypes the list of supposed super types
+     * @return true if the type is a subtype of or equal to one of the provided super types, false otherwise
+     * @since 0.14.1
+     */
+    default boolean isSubtype(@Nonnull TypeMirror type, @Nonnull List<? extends TypeMirror> superTypes) {
+        return Util.isSubtype(type, superTypes, getTypeUtils());
+    }
 }
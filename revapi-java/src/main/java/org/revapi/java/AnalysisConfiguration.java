@@ -37,12 +37,23 @@ public final class AnalysisConfiguration {
     private final Set<Pattern> classExclusionFilters;
     private final Set<Pattern> packageInclusionFilters;
     private final Set<Pattern> packageExclusionFilters;
+    private final boolean incremental;
 
     public AnalysisConfiguration(MissingClassReporting missingClassReporting, Set<String> useReportingCodes,
                                  boolean ignoreMissingAnnotations,
                                  Set<Pattern> classInclusionFilters,
                                  Set<Pattern> classExclusionFilters,
                                  Set<Pattern> packageInclusionFilters, Set<Pattern> packageExclusionFilters) {
+        this(missingClassReporting, useReportingCodes, ignoreMissingAnnotations, classInclusionFilters,
+                classExclusionFilters, packageInclusionFilters, packageExclusionFilters, false);
+    }
+
+    public AnalysisConfiguration(MissingClassReporting missingClassReporting, Set<String> useReportingCodes,
+                                 boolean ignoreMissingAnnotations,
+                                 Set<Pattern> classInclusionFilters,
+                                 Set<Pattern> classExclusionFilters,
+                                 Set<Pattern> packageInclusionFilters, Set<Pattern> packageExclusionFilters,
+                                 boolean incremental) {
         this.missingClassReporting = missingClassReporting;
         this.useReportingCodes = useReportingCodes;
         this.ignoreMissingAnnotations = ignoreMissingAnnotations;
@@ -50,6 +61,7 @@ public final class AnalysisConfiguration {
         this.classExclusionFilters = classExclusionFilters;
         this.packageInclusionFilters = packageInclusionFilters;
         this.packageExclusionFilters = packageExclusionFilters;
+        this.incremental = incremental;
     }
 
     public static AnalysisConfiguration fromModel(ModelNode node) {
@@ -69,9 +81,12 @@ public final class AnalysisConfiguration {
         Set<Pattern> packageExclusionFilters = readFilter(node.get("filter", "packages", "exclude"),
                 packagesRegex);
 
+        ModelNode incremental = node.get("incremental");
+
         return new AnalysisConfiguration(reporting, useReportingCodes,
                 ignoreMissingAnnotations, classInclusionFilters,
-                classExclusionFilters, packageInclusionFilters, packageExclusionFilters);
+                classExclusionFilters, packageInclusionFilters, packageExclusionFilters,
+                incremental.isDefined() && incremental.asBoolean());
     }
 
     public MissingClassReporting getMissingClassReporting() {
@@ -106,6 +121,13 @@ public final class AnalysisConfiguration {
         return packageInclusionFilters;
     }
 
+    /**
+     * @return true if only the types affected by the changes in the class files should be analyzed
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
     private static MissingClassReporting readMissingClassReporting(ModelNode analysisConfig) {
         ModelNode config = analysisConfig.get("missing-classes", "behavior");
         if (config.isDefined()) {
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.revapi.API;
+import org.revapi.Archive;
+import org.revapi.Element;
+import org.revapi.Metrics;
+import org.revapi.java.compilation.CompilationValve;
+import org.revapi.java.compilation.ProbingEnvironment;
+import org.revapi.java.model.MissingClassElement;
+import org.revapi.java.model.TypeElement;
+import org.revapi.java.spi.UseSite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Determines the types that cannot have changed between the old and new API so that their analysis can be skipped.
+ *
+ * <p>A type is considered dirty if the class file of it differs between the old and new archives (or is only present
+ * in one of them) or if it uses a dirty type in any way (including inheriting from it or being contained in it).
+ * This is because some checks look at the properties of the used types, too. The analysis of a type can be skipped
+ * if neither it nor any of its nested types are dirty and its API status is the same in both APIs.
+ *
+ * <p>The dirty types are determined lazily, once the element forests of both APIs are complete. This class is
+ * thread-safe.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class IncrementalAnalysis {
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalAnalysis.class);
+
+    private final ProbingEnvironment oldEnvironment;
+    private final ProbingEnvironment newEnvironment;
+    private final CompilationValve oldValve;
+    private final CompilationValve newValve;
+    private final Metrics metrics;
+    private Map<String, byte[]> oldDigests;
+    private Map<String, byte[]> newDigests;
+    private Set<String> dirty;
+    private Set<String> containsDirty;
+    private boolean disabled;
+
+    IncrementalAnalysis(ProbingEnvironment oldEnvironment, CompilationValve oldValve,
+                        ProbingEnvironment newEnvironment, CompilationValve newValve, Metrics metrics) {
+        this.oldEnvironment = oldEnvironment;
+        this.newEnvironment = newEnvironment;
+        this.oldValve = oldValve;
+        this.newValve = newValve;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return true if the types are known to be unchanged, including their children, and their analysis can be
+     * skipped
+     */
+    boolean isUnchanged(TypeElement oldType, TypeElement newType) {
+        if (oldType instanceof MissingClassElement || newType instanceof MissingClassElement) {
+            return false;
+        }
+
+        if (oldType.isInAPI() != newType.isInAPI() || oldType.isInApiThroughUse() != newType.isInApiThroughUse()) {
+            return false;
+        }
+
+        String name = oldType.getBinaryName();
+        if (!name.equals(newType.getBinaryName())) {
+            return false;
+        }
+
+        synchronized (this) {
+            if (dirty == null) {
+                Metrics.Timer timer = metrics.timer("java.incremental.init");
+                long start = timer.start();
+                try {
+                    init();
+                } finally {
+                    timer.stop(start);
+                }
+            }
+
+            //the types with unknown contents (like the ones from the system classpath) are never considered unchanged
+            return !disabled && oldDigests.get(name) != null && newDigests.get(name) != null
+                    && !dirty.contains(name) && !containsDirty.contains(name);
+        }
+    }
+
+    private void init() {
+        oldDigests = digestClasses(oldEnvironment.getApi(), oldValve);
+        newDigests = digestClasses(newEnvironment.getApi(), newValve);
+        dirty = new HashSet<>();
+        containsDirty = new HashSet<>();
+
+        if (oldDigests == null || newDigests == null) {
+            disabled = true;
+            return;
+        }
+
+        Deque<String> toProcess = new ArrayDeque<>();
+
+        Set<String> allNames = new HashSet<>(oldDigests.keySet());
+        allNames.addAll(newDigests.keySet());
+        for (String name : allNames) {
+            if (!Arrays.equals(oldDigests.get(name), newDigests.get(name))) {
+                dirty.add(name);
+                toProcess.add(name);
+            }
+        }
+
+        metrics.counter("java.incremental.changedClasses").add(dirty.size());
+
+        Map<String, TypeElement> oldTypes = typesByBinaryName(oldEnvironment);
+        Map<String, TypeElement> newTypes = typesByBinaryName(newEnvironment);
+
+        while (!toProcess.isEmpty()) {
+            String name = toProcess.poll();
+            markUsers(oldTypes.get(name), oldEnvironment, toProcess);
+            markUsers(newTypes.get(name), newEnvironment, toProcess);
+        }
+
+        for (String name : dirty) {
+            markContainers(oldTypes.get(name));
+            markContainers(newTypes.get(name));
+        }
+
+        metrics.counter("java.incremental.affectedTypes").add(dirty.size());
+    }
+
+    private void markUsers(TypeElement type, ProbingEnvironment environment, Deque<String> toProcess) {
+        if (type == null || type instanceof MissingClassElement) {
+            return;
+        }
+
+        for (UseSite use : type.getUseSites()) {
+            markDirty(owningType(use.getSite()), toProcess);
+        }
+
+        for (javax.lang.model.element.TypeElement derived : environment.getDerivedTypes(type.getDeclaringElement())) {
+            markDirty(environment.getTypeMap().get(derived), toProcess);
+        }
+
+        for (Element child : type.getChildren()) {
+            if (child instanceof TypeElement) {
+                markDirty((TypeElement) child, toProcess);
+            }
+        }
+    }
+
+    private void markDirty(TypeElement type, Deque<String> toProcess) {
+        if (type != null && dirty.add(type.getBinaryName())) {
+            toProcess.add(type.getBinaryName());
+        }
+    }
+
+    private void markContainers(TypeElement type) {
+        if (type == null) {
+            return;
+        }
+
+        Element parent = type.getParent();
+        while (parent != null) {
+            if (parent instanceof TypeElement) {
+                containsDirty.add(((TypeElement) parent).getBinaryName());
+            }
+            parent = parent.getParent();
+        }
+    }
+
+    private static TypeElement owningType(Element element) {
+        while (element != null && !(element instanceof TypeElement)) {
+            element = element.getParent();
+        }
+
+        return (TypeElement) element;
+    }
+
+    private static Map<String, TypeElement> typesByBinaryName(ProbingEnvironment environment) {
+        Map<String, TypeElement> ret = new HashMap<>();
+        for (TypeElement t : environment.getTypeMap().values()) {
+            ret.put(t.getBinaryName(), t);
+        }
+        return ret;
+    }
+
+    /**
+     * @return the digests of the class files in the archives of the API keyed by the binary names of the classes or
+     * null if the contents of some of the archives could not be read
+     */
+    private static Map<String, byte[]> digestClasses(API api, CompilationValve valve) {
+        Map<String, byte[]> ret = new HashMap<>();
+
+        for (Archive a : api.getArchives()) {
+            if (digestClasses(a, valve, ret) <= 0) {
+                LOG.warn("Could not find any classes in archive " + a.getName() + ". Incremental analysis disabled.");
+                return null;
+            }
+        }
+
+        if (api.getSupplementaryArchives() != null) {
+            for (Archive a : api.getSupplementaryArchives()) {
+                if (digestClasses(a, valve, ret) < 0) {
+                    return null;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the number of classes in the archive or -1 if the archive could not be read
+     */
+    private static int digestClasses(Archive archive, CompilationValve valve, Map<String, byte[]> digests) {
+        Map<String, byte[]> archiveDigests;
+        try {
+            //the digests are shared with the other API if it contains the same archive
+            archiveDigests = valve.getClassDigests(archive);
+        } catch (IOException e) {
+            LOG.warn("Failed to read the contents of archive " + archive.getName() + ". Incremental analysis" +
+                    " disabled.", e);
+            return -1;
+        }
+
+        //the first class on the classpath wins
+        archiveDigests.forEach(digests::putIfAbsent);
+
+        return archiveDigests.size();
+    }
+}
@@ -16,8 +16,6 @@
 
 package org.revapi.java;
 
-import static java.util.stream.Collectors.toList;
-
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -37,12 +35,10 @@ import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
-import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.lang.model.util.Types;
 
 import org.jboss.dmr.ModelNode;
 import org.revapi.API;
@@ -53,6 +49,7 @@ import org.revapi.CoIterator;
 import org.revapi.CorrespondenceComparatorDeducer;
 import org.revapi.DifferenceAnalyzer;
 import org.revapi.Element;
+import org.revapi.java.compilation.ArchiveIndexCache;
 import org.revapi.java.compilation.CompilationValve;
 import org.revapi.java.compilation.InclusionFilter;
 import org.revapi.java.compilation.ProbingEnvironment;
@@ -60,7 +57,6 @@ import org.revapi.java.model.JavaElementFactory;
 import org.revapi.java.model.MethodElement;
 import org.revapi.java.model.TypeElement;
 import org.revapi.java.spi.Check;
-import org.revapi.java.spi.Util;
 
 /**
  * @author Lukas Krejci
@@ -80,6 +76,7 @@ public final class JavaApiAnalyzer implements ApiAnalyzer {
     private AnalysisContext analysisContext;
     private AnalysisConfiguration configuration;
     private final Iterable<Check> checks;
+    private final ArchiveIndexCache archiveIndexCache = new ArchiveIndexCache();
 
     public JavaApiAnalyzer() {
         this(ServiceLoader.load(Check.class, JavaApiAnalyzer.class.getClassLoader()));
@@ -212,17 +209,21 @@ public final class JavaApiAnalyzer implements ApiAnalyzer {
                         bo = l1MethodOrder;
                     }
 
-                    for (MethodElement aMethod : as) {
+                    List<MethodElement> matches = OverloadMatcher.match(as, bs);
+
+                    for (int i = 0; i < as.size(); ++i) {
+                        MethodElement aMethod = as.get(i);
                         ao.put(aMethod, index);
                         aio.add(aMethod);
 
-                        MethodElement bMethod = removeBestMatch(aMethod, bs);
+                        MethodElement bMethod = matches.get(i);
                         bo.put(bMethod, index++);
                         bio.add(bMethod);
                     }
 
                     //add the rest
-                    for (MethodElement m : bs) {
+                    for (int i = as.size(); i < matches.size(); ++i) {
+                        MethodElement m = matches.get(i);
                         bo.put(m, index++);
                         bio.add(m);
                     }
@@ -264,118 +265,6 @@ public final class JavaApiAnalyzer implements ApiAnalyzer {
         elements.addAll(index, sortedMethods);
     }
 
-    private static MethodElement removeBestMatch(MethodElement blueprint, List<MethodElement> candidates) {
-        MethodElement best = null;
-        float maxScore = 0;
-        int bestIdx = -1;
-
-        List<String> fullBlueprintSignature = methodParamsSignature(blueprint, false);
-        List<String> erasedBlueprintSignature = methodParamsSignature(blueprint, true);
-
-        String fullBlueprintReturnType = Util.toUniqueString(blueprint.getModelRepresentation().getReturnType());
-        String erasedBlueprintReturnType = Util.toUniqueString(blueprint.getTypeEnvironment().getTypeUtils()
-                .erasure(blueprint.getModelRepresentation().getReturnType()));
-
-        int idx = 0;
-        for (MethodElement candidate : candidates) {
-            float score = computeMatchScore(fullBlueprintReturnType, fullBlueprintSignature,
-                    erasedBlueprintReturnType, erasedBlueprintSignature, candidate);
-            if (maxScore <= score) {
-                best = candidate;
-                maxScore = score;
-                bestIdx = idx;
-            }
-            idx++;
-        }
-
-        if (bestIdx != -1) {
-            candidates.remove(bestIdx);
-        }
-
-        return best;
-    }
-
-    private static List<String> methodParamsSignature(MethodElement method, boolean erased) {
-        if (erased) {
-            Types types = method.getTypeEnvironment().getTypeUtils();
-            return method.getDeclaringElement().getParameters().stream().map(p ->
-                    Util.toUniqueString(types.erasure(p.asType()))).collect(toList());
-        } else {
-            return method.getModelRepresentation().getParameterTypes().stream().map(Util::toUniqueString)
-                    .collect(toList());
-        }
-    }
-
-    private static float computeMatchScore(String blueprintReturnType, List<String> blueprintParamSignature,
-                                           String erasedReturnType, List<String> erasedParamSignature, MethodElement method) {
-
-        String mRt = Util.toUniqueString(method.getModelRepresentation().getReturnType());
-        String emRt = Util.toUniqueString(method.getTypeEnvironment().getTypeUtils()
-                .erasure(method.getModelRepresentation().getReturnType()));
-
-        List<String> mPs = methodParamsSignature(method, false);
-        List<String> emPs = methodParamsSignature(method, true);
-
-
-        //consider the return type as if it was another parameter
-        int maxParams = Math.max(blueprintParamSignature.size(), mPs.size()) + 1;
-
-        int commonParams = longestCommonSubsequenceLength(blueprintParamSignature, mPs,
-                (blueprintIndex, methodIndex) -> {
-
-                    String fullBlueprintSig = blueprintParamSignature.get(blueprintIndex);
-                    String erasedBlueprintSig = erasedParamSignature.get(blueprintIndex);
-
-                    String fullMethodSig = mPs.get(methodIndex);
-                    String erasedMethodSig = emPs.get(methodIndex);
-
-                    if (fullBlueprintSig.equals(fullMethodSig)) {
-                        return 2;
-                    } else if (erasedBlueprintSig.equals(erasedMethodSig)) {
-                        return 1;
-                    } else {
-                        return 0;
-                    }
-                });
-
-        //consider the return type as if it was another matching parameter
-        if (blueprintReturnType.equals(mRt)) {
-            commonParams += 2;
-        } else if (erasedReturnType.equals(emRt)) {
-            commonParams += 1;
-        }
-
-        if (maxParams == 1) {
-            //both methods have no parameters
-            //we consider that fact a "complete match"
-            return commonParams + 2;
-        } else {
-            //just consider the return type as one of parameters
-            return ((float) commonParams) / maxParams;
-        }
-    }
-
-    private static int longestCommonSubsequenceLength(List<?> as, List<?> bs, BiFunction<Integer, Integer, Integer>
-            matchScoreFunction) {
-        int[][] lengths = new int[as.size() + 1][bs.size() + 1];
-        int maxLen = 0;
-        // row 0 and column 0 are initialized to 0 already
-        for (int i = 0; i < as.size(); i++) {
-            for (int j = 0; j < bs.size(); j++) {
-                int matchScore = matchScoreFunction.apply(i, j);
-
-                if (matchScore > 0) {
-                    maxLen = lengths[i + 1][j + 1] = lengths[i][j] + matchScore;
-                } else {
-                    lengths[i + 1][j + 1] =
-                            Math.max(lengths[i + 1][j], lengths[i][j + 1]);
-                }
-            }
-        }
-
-        return maxLen;
-    }
-
     private static int addAllMethods(Collection<? extends Element> els, TreeMap<String,
             List<MethodElement>> methods) {
 
@@ -465,8 +354,13 @@ public final class JavaApiAnalyzer implements ApiAnalyzer {
         boolean ignoreMissingAnnotations = configuration.isIgnoreMissingAnnotations();
         InclusionFilter inclusionFilter = composeInclusionFilter(configuration);
 
-        return new JavaArchiveAnalyzer(api, compilationExecutor, configuration.getMissingClassReporting(),
-                ignoreMissingAnnotations, inclusionFilter);
+        JavaArchiveAnalyzer ret = new JavaArchiveAnalyzer(api, compilationExecutor,
+                configuration.getMissingClassReporting(), ignoreMissingAnnotations, inclusionFilter,
+                archiveIndexCache);
+
+        ret.getProbingEnvironment().setMetrics(analysisContext.getMetrics());
+
+        return ret;
     }
 
     @Nonnull
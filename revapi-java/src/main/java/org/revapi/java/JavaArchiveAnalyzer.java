@@ -20,9 +20,11 @@ import java.io.StringWriter;
 import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.revapi.API;
 import org.revapi.ArchiveAnalyzer;
+import org.revapi.java.compilation.ArchiveIndexCache;
 import org.revapi.java.compilation.CompilationFuture;
 import org.revapi.java.compilation.CompilationValve;
 import org.revapi.java.compilation.Compiler;
@@ -42,17 +44,30 @@ public final class JavaArchiveAnalyzer implements ArchiveAnalyzer {
     private final boolean ignoreMissingAnnotations;
     private CompilationValve compilationValve;
     private InclusionFilter inclusionFilter;
+    private final ArchiveIndexCache indexCache;
 
     public JavaArchiveAnalyzer(API api, ExecutorService compilationExecutor,
                                AnalysisConfiguration.MissingClassReporting missingClassReporting,
                                boolean ignoreMissingAnnotations,
                                InclusionFilter inclusionFilter) {
+        this(api, compilationExecutor, missingClassReporting, ignoreMissingAnnotations, inclusionFilter, null);
+    }
+
+    /**
+     * @param indexCache the cache of the indices of the archives shared with the analysis of the other API or null
+     *                   if not shared
+     */
+    public JavaArchiveAnalyzer(API api, ExecutorService compilationExecutor,
+                               AnalysisConfiguration.MissingClassReporting missingClassReporting,
+                               boolean ignoreMissingAnnotations,
+                               InclusionFilter inclusionFilter, @Nullable ArchiveIndexCache indexCache) {
         this.api = api;
         this.executor = compilationExecutor;
         this.missingClassReporting = missingClassReporting;
         this.ignoreMissingAnnotations = ignoreMissingAnnotations;
         this.probingEnvironment = new ProbingEnvironment(api);
         this.inclusionFilter = inclusionFilter;
+        this.indexCache = indexCache;
     }
 
     @Nonnull
@@ -63,7 +78,8 @@ public final class JavaArchiveAnalyzer implements ArchiveAnalyzer {
         }
 
         StringWriter output = new StringWriter();
-        Compiler compiler = new Compiler(executor, output, api.getArchives(), api.getSupplementaryArchives());
+        Compiler compiler = new Compiler(executor, output, api.getArchives(), api.getSupplementaryArchives(),
+                indexCache);
         try {
             compilationValve = compiler
                 .compile(probingEnvironment, missingClassReporting, ignoreMissingAnnotations, inclusionFilter);
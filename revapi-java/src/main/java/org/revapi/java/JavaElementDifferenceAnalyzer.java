@@ -24,27 +24,27 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.ResourceBundle;
-import java.util.Set;
+import java.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.lang.model.type.DeclaredType;
 import javax.tools.ToolProvider;
 
 import org.revapi.AnalysisContext;
 import org.revapi.Difference;
 import org.revapi.DifferenceAnalyzer;
 import org.revapi.Element;
+import org.revapi.Metrics;
 import org.revapi.Report;
-import org.revapi.Stats;
 import org.revapi.java.compilation.CompilationValve;
 import org.revapi.java.compilation.ProbingEnvironment;
 import org.revapi.java.model.AnnotationElement;
@@ -53,10 +53,9 @@ import org.revapi.java.model.MethodElement;
 import org.revapi.java.model.MethodParameterElement;
 import org.revapi.java.model.TypeElement;
 import org.revapi.java.spi.Check;
-import org.revapi.java.spi.JavaElement;
+import org.revapi.java.spi.Code;
 import org.revapi.java.spi.JavaModelElement;
 import org.revapi.java.spi.JavaTypeElement;
-import org.revapi.java.spi.UseSite;
 import org.revapi.java.spi.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,7 +99,8 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         }
     }
 
-    private final Iterable<Check> checks;
+    private final AnalysisContext analysisContext;
+    private Iterable<Check> checks;
     private final CompilationValve oldCompilationValve;
     private final CompilationValve newCompilationValve;
     private final AnalysisConfiguration analysisConfiguration;
@@ -108,7 +108,12 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
     private final ProbingEnvironment oldEnvironment;
     private final ProbingEnvironment newEnvironment;
     private final Map<Check.Type, List<Check>> checksByInterest;
+    private final IdentityHashMap<Check, Metrics.Timer> checkTimers = new IdentityHashMap<>();
     private final Deque<CheckType> checkTypeStack = new ArrayDeque<>();
+    private final IncrementalAnalysis incrementalAnalysis;
+    private final UseChainIndex oldUseChains;
+    private final UseChainIndex newUseChains;
+    private final Metrics.Counter skippedTypes;
 
     // NOTE: this doesn't have to be a stack of lists only because of the fact that annotations
     // are always sorted as last amongst sibling model elements.
@@ -121,6 +126,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         ProbingEnvironment newEnvironment, CompilationValve newValve, Iterable<Check> checks,
         AnalysisConfiguration analysisConfiguration) {
 
+        this.analysisContext = analysisContext;
         this.oldCompilationValve = oldValve;
         this.newCompilationValve = newValve;
 
@@ -139,6 +145,21 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         this.newEnvironment = newEnvironment;
 
         this.checksByInterest = new EnumMap<>(Check.Type.class);
+        indexChecks();
+
+        this.incrementalAnalysis = analysisConfiguration.isIncremental()
+                ? new IncrementalAnalysis(oldEnvironment, oldValve, newEnvironment, newValve,
+                        analysisContext.getMetrics())
+                : null;
+        this.oldUseChains = new UseChainIndex(oldEnvironment, analysisContext.getMetrics());
+        this.newUseChains = new UseChainIndex(newEnvironment, analysisContext.getMetrics());
+        this.skippedTypes = analysisContext.getMetrics().counter("java.incremental.skippedTypes");
+    }
+
+    private void indexChecks() {
+        checksByInterest.clear();
+        checkTimers.clear();
+
         for (Check.Type c : Check.Type.values()) {
             checksByInterest.put(c, new ArrayList<>());
         }
@@ -148,13 +169,37 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
                 List<Check> cs = checksByInterest.get(t);
                 cs.add(c);
             }
+            checkTimers.put(c, analysisContext.getMetrics().timer(c.getClass().getName()));
         }
     }
 
+    /**
+     * Deactivates the checks that can only report differences that are going to be discarded anyway.
+     */
+    @Override
+    public void setDiscardedDifferenceCodes(@Nonnull Predicate<String> discarded) {
+        List<Check> active = new ArrayList<>();
+        for (Check c : checks) {
+            EnumSet<Code> codes = c.getProducedCodes();
+            if (codes != null && codes.stream().allMatch(code -> discarded.test(code.code()))) {
+                LOG.debug("Deactivating check {}, because all the differences it can report are discarded.",
+                        c.getClass().getName());
+                continue;
+            }
+
+            active.add(c);
+        }
+
+        checks = active;
+        indexChecks();
+    }
 
     @Override
     public void open() {
         Timing.LOG.debug("Opening difference analyzer.");
+        //the whole analysis runs on this thread
+        oldEnvironment.setAnalysisThread(Thread.currentThread());
+        newEnvironment.setAnalysisThread(Thread.currentThread());
     }
 
     @Override
@@ -168,18 +213,36 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         Timing.LOG.debug("Difference analyzer closed.");
     }
 
+    /**
+     * The reporters render the reported elements using javac and can cause the lazily created children of the
+     * elements to be initialized, which runs javac, too. Javac is not thread-safe, so the reporters need to access
+     * the elements from the thread of the analysis. The asynchronous reporting therefore has no effect on the analysis
+     * of Java archives.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isAsynchronousReportingSupported() {
+        return false;
+    }
+
     @Override
     public void beginAnalysis(@Nullable Element oldElement, @Nullable Element newElement) {
         Timing.LOG.trace("Beginning analysis of {} and {}.", oldElement, newElement);
 
-        if (conforms(oldElement, newElement, TypeElement.class)) {
+        if (isUnchanged(oldElement, newElement)) {
+            skippedTypes.increment();
+            lastAnnotationResults = null;
+            checkTypeStack.push(CheckType.NONE);
+        } else if (conforms(oldElement, newElement, TypeElement.class)) {
             checkTypeStack.push(CheckType.CLASS);
             lastAnnotationResults = null;
             for (Check c : checksByInterest.get(Check.Type.CLASS)) {
-                Stats.of(c.getClass().getName()).start();
+                Metrics.Timer timer = checkTimers.get(c);
+                long start = timer.start();
                 c.visitClass(oldElement == null ? null : (TypeElement) oldElement,
                     newElement == null ? null : (TypeElement) newElement);
-                Stats.of(c.getClass().getName()).end(oldElement, newElement);
+                timer.stop(start, newElement == null ? oldElement : newElement);
             }
         } else if (conforms(oldElement, newElement, AnnotationElement.class)) {
             // annotation are always terminal elements and they also always sort as last elements amongst siblings, so
@@ -190,14 +253,15 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             //DO NOT push the ANNOTATION type to the checkTypeStack. Annotations are handled differently and this would
             //lead to the stack corruption and missed problems!!!
             for (Check c : checksByInterest.get(Check.Type.ANNOTATION)) {
-                Stats.of(c.getClass().getName()).start();
+                Metrics.Timer timer = checkTimers.get(c);
+                long start = timer.start();
                 List<Difference> cps = c
                     .visitAnnotation(oldElement == null ? null : (AnnotationElement) oldElement,
                         newElement == null ? null : (AnnotationElement) newElement);
                 if (cps != null) {
                     lastAnnotationResults.addAll(cps);
                 }
-                Stats.of(c.getClass().getName()).end(oldElement, newElement);
+                timer.stop(start, newElement == null ? oldElement : newElement);
             }
         } else if (conforms(oldElement, newElement, FieldElement.class)) {
             doRestrictedCheck((FieldElement) oldElement, (FieldElement) newElement, CheckType.FIELD);
@@ -209,6 +273,16 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         }
     }
 
+    @Override
+    public boolean isDescendRequired(@Nonnull Element oldElement, @Nonnull Element newElement) {
+        return !isUnchanged(oldElement, newElement);
+    }
+
+    private boolean isUnchanged(@Nullable Element oldElement, @Nullable Element newElement) {
+        return incrementalAnalysis != null && oldElement instanceof TypeElement && newElement instanceof TypeElement
+                && incrementalAnalysis.isUnchanged((TypeElement) oldElement, (TypeElement) newElement);
+    }
+
     private <T extends JavaModelElement> void doRestrictedCheck(T oldElement, T newElement, CheckType interest) {
         lastAnnotationResults = null;
 
@@ -216,7 +290,8 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
                 && isCheckedElsewhere(newElement, newEnvironment))) {
             checkTypeStack.push(interest);
             for (Check c : checksByInterest.get(interest.getCheckType())) {
-                Stats.of(c.getClass().getName()).start();
+                Metrics.Timer timer = checkTimers.get(c);
+                long start = timer.start();
                 switch (interest) {
                     case FIELD:
                         c.visitField((FieldElement) oldElement, (FieldElement) newElement);
@@ -228,7 +303,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
                         c.visitMethodParameter((MethodParameterElement) oldElement, (MethodParameterElement) newElement);
                         break;
                 }
-                Stats.of(c.getClass().getName()).end(oldElement, newElement);
+                timer.stop(start, newElement == null ? oldElement : newElement);
             }
         } else {
             //"ignore what's on the stack because no checks actually happened".
@@ -274,12 +349,12 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
 
                 if (oldElement != null) {
                     oldUseChain = new StringBuilder();
-                    appendUses(oldEnvironment, oldElement, oldUseChain);
+                    appendUses(oldUseChains, oldElement, oldUseChain);
                 }
 
                 if (newElement != null) {
                     newUseChain = new StringBuilder();
-                    appendUses(newEnvironment, newElement, newUseChain);
+                    appendUses(newUseChains, newElement, newUseChain);
                 }
 
                 Map<String, String> atts = new HashMap<>(d.attachments);
@@ -306,7 +381,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         return ca && cb;
     }
 
-    private void append(StringBuilder bld, TypeAndUseSite typeAndUseSite) {
+    private void append(StringBuilder bld, UseChainIndex.TypeAndUseSite typeAndUseSite) {
         String message;
         switch (typeAndUseSite.useSite.getUseType()) {
             case ANNOTATES:
@@ -347,7 +422,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         bld.append(message);
     }
 
-    private void appendUses(ProbingEnvironment env, Element element, final StringBuilder bld) {
+    private void appendUses(UseChainIndex useChains, Element element, final StringBuilder bld) {
         LOG.trace("Reporting uses of {}", element);
 
         if (element == null) {
@@ -355,7 +430,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             return;
         }
 
-        while (element != null && !(element instanceof JavaTypeElement)) {
+        while (element != null && !(element instanceof TypeElement)) {
             element = element.getParent();
         }
 
@@ -363,7 +438,7 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             return;
         }
 
-        JavaTypeElement usedType = (JavaTypeElement) element;
+        TypeElement usedType = (TypeElement) element;
 
         if (usedType.isInAPI() && !usedType.isInApiThroughUse()) {
             String message = MessageFormat.format(messages.getString("revapi.java.uses.partOfApi"),
@@ -372,50 +447,16 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             return;
         }
 
-        usedType.visitUseSites(new UseSite.Visitor<Object, Void>() {
-            @Nullable
-            @Override
-            public Object visit(@Nonnull DeclaredType type, @Nonnull UseSite use,
-                                @Nullable Void parameter) {
-                if (appendUse(env, usedType, bld, type, use)) {
-                    return Boolean.TRUE; //just a non-null values
-                }
-
-                return null;
-            }
-
-            @Nullable
-            @Override
-            public Object end(DeclaredType type, @Nullable Void parameter) {
-                return null;
-            }
-        }, null);
-    }
-
-
-    private boolean appendUse(ProbingEnvironment env, JavaTypeElement usedType, StringBuilder bld, DeclaredType type,
-                              UseSite use) {
-
-        if (!use.getUseType().isMovingToApi()) {
-            return false;
-        }
-
-        List<TypeAndUseSite> chain = getExamplePathToApiArchive(env, usedType, type, use);
-        Iterator<TypeAndUseSite> chainIt = chain.iterator();
+        List<UseChainIndex.TypeAndUseSite> chain = useChains.getExamplePathToApi(usedType);
 
         if (chain.isEmpty()) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Could not find example path to API element for type {} starting with use {}",
-                        ((javax.lang.model.element.TypeElement) type.asElement()).getQualifiedName().toString(), use);
-            }
-            return false;
+            LOG.debug("Could not find example path to API element for type {}", usedType);
+            return;
         }
 
-        TypeAndUseSite last = null;
-        if (chainIt.hasNext()) {
-            last = chainIt.next();
-            append(bld, last);
-        }
+        Iterator<UseChainIndex.TypeAndUseSite> chainIt = chain.iterator();
+        UseChainIndex.TypeAndUseSite last = chainIt.next();
+        append(bld, last);
 
         while (chainIt.hasNext()) {
             bld.append(" <- ");
@@ -427,104 +468,6 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             last.useSite.getSite().getFullHumanReadableString());
 
         bld.append(" (").append(message).append(")");
-
-        return true;
-    }
-
-    private List<TypeAndUseSite> getExamplePathToApiArchive(ProbingEnvironment env, JavaTypeElement usedType,
-                                                            DeclaredType type, UseSite bottomUse) {
-
-        ArrayList<TypeAndUseSite> ret = new ArrayList<>();
-
-        traverseToApi(env, usedType, type, bottomUse, ret, new HashSet<>());
-
-        return ret;
-    }
-
-    private boolean traverseToApi(ProbingEnvironment env, final JavaTypeElement usedType, final DeclaredType type,
-                                  final UseSite currentUse, final List<TypeAndUseSite> path, final
-                                  Set<javax.lang.model.element.TypeElement> visitedTypes) {
-
-        if (!currentUse.getUseType().isMovingToApi()) {
-            return false;
-        }
-
-        JavaTypeElement ut = findClassOf(currentUse.getSite());
-
-        return appendUseType(env, ut, path, usedType, type, currentUse, visitedTypes);
-    }
-
-    private boolean appendUseType(ProbingEnvironment env, JavaTypeElement ut, List<TypeAndUseSite> path,
-                               JavaTypeElement usedType, DeclaredType type, UseSite currentUse,
-                               Set<javax.lang.model.element.TypeElement> visitedTypes) {
-
-        javax.lang.model.element.TypeElement useType = ut.getDeclaringElement();
-
-        if (visitedTypes.contains(useType)) {
-            return false;
-        }
-
-        visitedTypes.add(useType);
-
-        if (ut.isInAPI() && !ut.isInApiThroughUse() && !ut.equals(usedType)) {
-            //the class is in the primary API
-            path.add(0, new TypeAndUseSite(type, currentUse));
-            return true;
-        } else {
-            Boolean ret = ut.visitUseSites(new UseSite.Visitor<Boolean, Void>() {
-                @Nullable
-                @Override
-                public Boolean visit(@Nonnull DeclaredType visitedType, @Nonnull UseSite use,
-                                     @Nullable Void parameter) {
-                    if (traverseToApi(env, usedType, visitedType, use, path, visitedTypes)) {
-                        path.add(0, new TypeAndUseSite(type, currentUse));
-                        return true;
-                    }
-                    return null;
-                }
-
-                @Nullable
-                @Override
-                public Boolean end(DeclaredType type, @Nullable Void parameter) {
-                    return null;
-                }
-            }, null);
-
-            if (ret == null) {
-                Set<javax.lang.model.element.TypeElement> derivedUseTypes = env.getDerivedTypes(useType);
-
-                for (javax.lang.model.element.TypeElement dut : derivedUseTypes) {
-                    TypeElement model = env.getTypeMap().get(dut);
-                    if (model == null) {
-                        continue;
-                    }
-
-                    JavaModelElement derivedUseElement = findSameDeclarationUnder(currentUse.getSite(), model);
-                    if (derivedUseElement == null) {
-                        continue;
-                    }
-
-                    UseSite derivedUse = new UseSite(currentUse.getUseType(), derivedUseElement);
-
-                    if (appendUseType(env, model, path, usedType, type, derivedUse, visitedTypes)) {
-
-                        ret = true;
-                        break;
-                    }
-                }
-
-            }
-
-            return ret == null ? false : ret;
-        }
-    }
-
-    private JavaTypeElement findClassOf(JavaElement element) {
-        while (element != null && !(element instanceof JavaTypeElement)) {
-            element = (JavaElement) element.getParent();
-        }
-
-        return (JavaTypeElement) element;
     }
 
     private javax.lang.model.element.TypeElement findTypeOf(javax.lang.model.element.Element element) {
@@ -535,22 +478,6 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         return (javax.lang.model.element.TypeElement) element;
     }
 
-    private JavaModelElement findSameDeclarationUnder(JavaElement declaredElement, JavaTypeElement owningElement) {
-        if (!(declaredElement instanceof JavaModelElement)) {
-            return null;
-        }
-
-        JavaModelElement dme = (JavaModelElement) declaredElement;
-        for (Element e : owningElement.getChildren()) {
-            if (e instanceof JavaModelElement
-                    && ((JavaModelElement) e).getDeclaringElement().equals(dme.getDeclaringElement())) {
-                return (JavaModelElement) e;
-            }
-        }
-
-        return null;
-    }
-
     private boolean isCheckedElsewhere(JavaModelElement element, ProbingEnvironment env) {
         if (element == null) {
             //the other element will not be null and therefore we will determine the fact with the other element...
@@ -561,8 +488,8 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
             return false;
         }
 
-        String elementSig = Util.toUniqueString(element.getModelRepresentation());
-        String declSig = Util.toUniqueString(element.getDeclaringElement().asType());
+        String elementSig = env.toUniqueString(element.getModelRepresentation());
+        String declSig = env.toUniqueString(element.getDeclaringElement().asType());
 
         if (!Objects.equals(elementSig, declSig)) {
             return false;
@@ -588,16 +515,6 @@ public final class JavaElementDifferenceAnalyzer implements DifferenceAnalyzer {
         }
     }
 
-    private static class TypeAndUseSite {
-        final DeclaredType type;
-        final UseSite useSite;
-
-        public TypeAndUseSite(DeclaredType type, UseSite useSite) {
-            this.type = type;
-            this.useSite = useSite;
-        }
-    }
-
     private enum CheckType {
         CLASS(Check.Type.CLASS), FIELD(Check.Type.FIELD), METHOD(Check.Type.METHOD),
         METHOD_PARAMETER(Check.Type.METHOD_PARAMETER), ANNOTATION(Check.Type.ANNOTATION), NONE(null);
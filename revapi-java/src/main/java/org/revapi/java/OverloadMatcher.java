@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+
+package org.revapi.java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+import org.revapi.java.model.MethodElement;
+import org.revapi.java.spi.TypeEnvironment;
+
+/**
+ * Pairs the overloads of a method in the old and new API according to their mutual resemblance.
+ *
+ * <p>Each overload on the smaller side is paired with the best matching remaining overload on the other side,
+ * in order. The resemblance of two overloads is the similarity of their parameters and return types, both full and
+ * erased. The signatures of the methods are computed only once and the types in them are replaced by numeric ids so
+ * that comparing them is cheap. Because an overload that has exactly the same signature as the matched method is
+ * always the best match, it is found by a hash lookup instead of comparing the method with all the candidates.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class OverloadMatcher {
+
+    private OverloadMatcher() {
+
+    }
+
+    /**
+     * @param as the overloads on the smaller side
+     * @param bs the overloads on the other side, at least as many as {@code as}
+     * @return the overloads from {@code bs} such that the i-th method is the match of the i-th method in {@code as},
+     * followed by the unmatched methods in their original order
+     */
+    static List<MethodElement> match(List<MethodElement> as, List<MethodElement> bs) {
+        Map<String, Integer> typeIds = new HashMap<>();
+
+        List<Signature> aSigs = new ArrayList<>(as.size());
+        for (MethodElement m : as) {
+            aSigs.add(signature(m, typeIds));
+        }
+
+        List<Signature> bSigs = new ArrayList<>(bs.size());
+        for (MethodElement m : bs) {
+            bSigs.add(signature(m, typeIds));
+        }
+
+        int[] order = matchSignatures(aSigs, bSigs);
+
+        List<MethodElement> ret = new ArrayList<>(bs.size());
+        for (int i : order) {
+            ret.add(bs.get(i));
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the indices of the signatures from {@code bs} such that the i-th index is the index of the match of
+     * the i-th signature in {@code as}, followed by the indices of the unmatched signatures in ascending order
+     */
+    static int[] matchSignatures(List<Signature> as, List<Signature> bs) {
+        //the indices of the candidates with given exact signature, in ascending order
+        Map<Signature, Deque<Integer>> exactMatches = new HashMap<>();
+        for (int i = 0; i < bs.size(); ++i) {
+            exactMatches.computeIfAbsent(bs.get(i), k -> new ArrayDeque<>()).add(i);
+        }
+
+        boolean[] matched = new boolean[bs.size()];
+        int[] ret = new int[bs.size()];
+        int retIdx = 0;
+
+        for (Signature a : as) {
+            int best = -1;
+
+            //an exact match has the maximum possible score. If there are more of them, the last one is chosen, just
+            //as when comparing the scores.
+            Deque<Integer> exact = exactMatches.get(a);
+            if (exact != null) {
+                while (!exact.isEmpty() && matched[exact.peekLast()]) {
+                    exact.pollLast();
+                }
+
+                if (!exact.isEmpty()) {
+                    best = exact.pollLast();
+                }
+            }
+
+            if (best == -1) {
+                float maxScore = 0;
+                for (int i = 0; i < bs.size(); ++i) {
+                    if (matched[i]) {
+                        continue;
+                    }
+
+                    float score = computeMatchScore(a, bs.get(i));
+                    if (maxScore <= score) {
+                        best = i;
+                        maxScore = score;
+                    }
+                }
+            }
+
+            matched[best] = true;
+            ret[retIdx++] = best;
+        }
+
+        //add the rest
+        for (int i = 0; i < bs.size(); ++i) {
+            if (!matched[i]) {
+                ret[retIdx++] = i;
+            }
+        }
+
+        return ret;
+    }
+
+    private static Signature signature(MethodElement method, Map<String, Integer> typeIds) {
+        TypeEnvironment env = method.getTypeEnvironment();
+        Types types = env.getTypeUtils();
+
+        List<? extends TypeMirror> params = method.getModelRepresentation().getParameterTypes();
+        int[] fullParams = new int[params.size()];
+        for (int i = 0; i < fullParams.length; ++i) {
+            fullParams[i] = typeId(env.toUniqueString(params.get(i)), typeIds);
+        }
+
+        //the erased parameters are computed from the declared parameters of the method, not the parameters of the
+        //(possibly inherited) method type in the context of the class
+        int[] erasedParams = method.getDeclaringElement().getParameters().stream()
+                .mapToInt(p -> typeId(env.toUniqueString(types.erasure(p.asType())), typeIds)).toArray();
+
+        TypeMirror returnType = method.getModelRepresentation().getReturnType();
+        int fullReturn = typeId(env.toUniqueString(returnType), typeIds);
+        int erasedReturn = typeId(env.toUniqueString(types.erasure(returnType)), typeIds);
+
+        return new Signature(fullReturn, fullParams, erasedReturn, erasedParams);
+    }
+
+    private static int typeId(String type, Map<String, Integer> typeIds) {
+        return typeIds.computeIfAbsent(type, t -> typeIds.size());
+    }
+
+    private static float computeMatchScore(Signature blueprint, Signature method) {
+        //consider the return type as if it was another parameter
+        int maxParams = Math.max(blueprint.fullParams.length, method.fullParams.length) + 1;
+
+        int commonParams = longestCommonSubsequenceLength(blueprint, method);
+
+        //consider the return type as if it was another matching parameter
+        if (blueprint.fullReturn == method.fullReturn) {
+            commonParams += 2;
+        } else if (blueprint.erasedReturn == method.erasedReturn) {
+            commonParams += 1;
+        }
+
+        if (maxParams == 1) {
+            //both methods have no parameters
+            //we consider that fact a "complete match"
+            return commonParams + 2;
+        } else {
+            //just consider the return type as one of parameters
+            return ((float) commonParams) / maxParams;
+        }
+    }
+
+    private static int longestCommonSubsequenceLength(Signature a, Signature b) {
+        int aLen = a.fullParams.length;
+        int bLen = b.fullParams.length;
+
+        int[][] lengths = new int[aLen + 1][bLen + 1];
+        int maxLen = 0;
+        // row 0 and column 0 are initialized to 0 already
+        for (int i = 0; i < aLen; i++) {
+            for (int j = 0; j < bLen; j++) {
+                int matchScore;
+                if (a.fullParams[i] == b.fullParams[j]) {
+                    matchScore = 2;
+                } else if (a.erasedParams[i] == b.erasedParams[j]) {
+                    matchScore = 1;
+                } else {
+                    matchScore = 0;
+                }
+
+                if (matchScore > 0) {
+                    maxLen = lengths[i + 1][j + 1] = lengths[i][j] + matchScore;
+                } else {
+                    lengths[i + 1][j + 1] = Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+                }
+            }
+        }
+
+        return maxLen;
+    }
+
+    /**
+     * The signature of a method with the types replaced by numeric ids. Two signatures are equal if the full types
+     * of the parameters and the return type are equal.
+     */
+    static final class Signature {
+        final int fullReturn;
+        final int[] fullParams;
+        final int erasedReturn;
+        final int[] erasedParams;
+
+        Signature(int fullReturn, int[] fullParams, int erasedReturn, int[] erasedParams) {
+            this.fullReturn = fullReturn;
+            this.fullParams = fullParams;
+            this.erasedReturn = erasedReturn;
+            this.erasedParams = erasedParams;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+
+            Signature other = (Signature) o;
+            return fullReturn == other.fullReturn && Arrays.equals(fullParams, other.fullParams);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fullReturn + Arrays.hashCode(fullParams);
+        }
+    }
+}
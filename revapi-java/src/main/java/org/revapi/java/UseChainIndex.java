@@ -0,0 +1,240 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.type.DeclaredType;
+
+import org.revapi.Element;
+import org.revapi.Metrics;
+import org.revapi.java.compilation.ProbingEnvironment;
+import org.revapi.java.model.TypeElement;
+import org.revapi.java.spi.JavaElement;
+import org.revapi.java.spi.JavaModelElement;
+import org.revapi.java.spi.UseSite;
+
+/**
+ * Finds the example chains of uses through which the types are dragged into the API.
+ *
+ * <p>The shortest chains of all the types are determined at once, by a breadth-first search from the types in the
+ * primary API over the reversed uses. A type using another type through an inherited member is also considered as
+ * the user of it. The search is done lazily, once the chain of some type is first asked for, because the use chains
+ * are only reported if configured so. After that, the chain of any type is just a sequence of the precomputed next
+ * steps. This class is thread-safe.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class UseChainIndex {
+
+    private final ProbingEnvironment environment;
+    private final Metrics metrics;
+    private Map<javax.lang.model.element.TypeElement, Link> nextSteps;
+
+    UseChainIndex(ProbingEnvironment environment, Metrics metrics) {
+        this.environment = environment;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param usedType the type to find the use chain of
+     * @return the shortest chain of the uses from the type to a type in the primary API, or an empty list if the type
+     * is not used by the API at all
+     */
+    List<TypeAndUseSite> getExamplePathToApi(TypeElement usedType) {
+        Map<javax.lang.model.element.TypeElement, Link> steps;
+        synchronized (this) {
+            if (nextSteps == null) {
+                Metrics.Timer timer = metrics.timer("java.useChains.index");
+                long start = timer.start();
+                try {
+                    nextSteps = index();
+                } finally {
+                    timer.stop(start);
+                }
+            }
+            steps = nextSteps;
+        }
+
+        List<TypeAndUseSite> ret = new ArrayList<>();
+        Link next = steps.get(usedType.getDeclaringElement());
+        while (next != null) {
+            ret.add(next.use);
+            next = steps.get(next.type.getDeclaringElement());
+        }
+
+        return ret;
+    }
+
+    private Map<javax.lang.model.element.TypeElement, Link> index() {
+        //sorted so that the chosen chains are stable between the runs
+        List<TypeElement> types = new ArrayList<>(environment.getTypeMap().values());
+        types.sort(Comparator.comparing(TypeElement::getBinaryName));
+
+        //the links are to the types using the key type
+        Map<javax.lang.model.element.TypeElement, List<Link>> users = new HashMap<>();
+        Deque<TypeElement> toProcess = new ArrayDeque<>();
+
+        Map<javax.lang.model.element.TypeElement, List<UseSite>> useSites = new HashMap<>();
+        for (TypeElement t : types) {
+            if (isApiRoot(t)) {
+                toProcess.add(t);
+            }
+
+            for (UseSite use : useSites.computeIfAbsent(t.getDeclaringElement(), x -> sortedUseSites(t))) {
+                TypeElement user = owningType(use.getSite());
+                if (user != null && use.getUseType().isMovingToApi()) {
+                    addUse(users, user, t, use);
+                }
+            }
+        }
+
+        //the uses through the inherited members come after the declared uses so that the latter are preferred in
+        //the chains of the same length
+        Map<javax.lang.model.element.TypeElement, Map<javax.lang.model.element.Element, JavaModelElement>>
+                membersByDeclaration = new HashMap<>();
+        for (TypeElement t : types) {
+            for (UseSite use : useSites.get(t.getDeclaringElement())) {
+                TypeElement user = owningType(use.getSite());
+                //the chain through the user itself is never longer than the chain through its derived types
+                if (user == null || !use.getUseType().isMovingToApi() || isApiRoot(user)) {
+                    continue;
+                }
+
+                for (javax.lang.model.element.TypeElement d : environment.getDerivedTypes(user.getDeclaringElement())) {
+                    TypeElement derived = environment.getTypeMap().get(d);
+                    if (derived == null) {
+                        continue;
+                    }
+
+                    JavaModelElement derivedSite = findSameDeclarationUnder(use.getSite(),
+                            membersByDeclaration.computeIfAbsent(d, x -> membersByDeclaration(derived)));
+                    if (derivedSite != null) {
+                        addUse(users, derived, t, new UseSite(use.getUseType(), derivedSite));
+                    }
+                }
+            }
+        }
+
+        //the links are to the next type on the chain to the API
+        Map<javax.lang.model.element.TypeElement, Link> ret = new HashMap<>();
+        for (TypeElement root : toProcess) {
+            ret.put(root.getDeclaringElement(), null);
+        }
+
+        while (!toProcess.isEmpty()) {
+            TypeElement t = toProcess.poll();
+            for (Link l : users.getOrDefault(t.getDeclaringElement(), Collections.emptyList())) {
+                javax.lang.model.element.TypeElement used = l.type.getDeclaringElement();
+                if (!ret.containsKey(used)) {
+                    ret.put(used, new Link(t, l.use));
+                    toProcess.add(l.type);
+                }
+            }
+        }
+
+        metrics.counter("java.useChains.indexedTypes").add(ret.size());
+
+        return ret;
+    }
+
+    private static void addUse(Map<javax.lang.model.element.TypeElement, List<Link>> users, TypeElement user,
+                               TypeElement used, UseSite use) {
+        users.computeIfAbsent(user.getDeclaringElement(), x -> new ArrayList<>())
+                .add(new Link(used, new TypeAndUseSite(used.getModelRepresentation(), use)));
+    }
+
+    /**
+     * The use sites are kept in a hash set whose iteration order differs between the runs, so they need to be sorted,
+     * too, for the chains to be stable.
+     */
+    private static List<UseSite> sortedUseSites(TypeElement type) {
+        List<UseSite> ret = new ArrayList<>(type.getUseSites());
+        ret.sort(Comparator.comparing(UseSite::getUseType)
+                .thenComparing(u -> u.getSite().getFullHumanReadableString()));
+        return ret;
+    }
+
+    private static boolean isApiRoot(TypeElement type) {
+        return type.isInAPI() && !type.isInApiThroughUse();
+    }
+
+    private static TypeElement owningType(Element element) {
+        while (element != null && !(element instanceof TypeElement)) {
+            element = element.getParent();
+        }
+
+        return (TypeElement) element;
+    }
+
+    private static JavaModelElement findSameDeclarationUnder(JavaElement declaredElement,
+            Map<javax.lang.model.element.Element, JavaModelElement> membersByDeclaration) {
+        if (!(declaredElement instanceof JavaModelElement)) {
+            return null;
+        }
+
+        return membersByDeclaration.get(((JavaModelElement) declaredElement).getDeclaringElement());
+    }
+
+    /**
+     * Only the direct children of the type are looked at. These are created eagerly, so this doesn't initialize the
+     * lazily created children of the inherited members.
+     *
+     * @return the children of the type keyed by their declaring elements
+     */
+    private static Map<javax.lang.model.element.Element, JavaModelElement> membersByDeclaration(TypeElement type) {
+        Map<javax.lang.model.element.Element, JavaModelElement> ret = new HashMap<>();
+        for (Element e : type.getChildren()) {
+            if (e instanceof JavaModelElement) {
+                ret.putIfAbsent(((JavaModelElement) e).getDeclaringElement(), (JavaModelElement) e);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * A use of a type by the site.
+     */
+    static final class TypeAndUseSite {
+        final DeclaredType type;
+        final UseSite useSite;
+
+        TypeAndUseSite(DeclaredType type, UseSite useSite) {
+            this.type = type;
+            this.useSite = useSite;
+        }
+    }
+
+    private static final class Link {
+        final TypeElement type;
+        final TypeAndUseSite use;
+
+        Link(TypeElement type, TypeAndUseSite use) {
+            this.type = type;
+            this.use = use;
+        }
+    }
+}
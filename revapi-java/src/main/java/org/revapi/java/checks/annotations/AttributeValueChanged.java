@@ -109,4 +109,10 @@ public final class AttributeValueChanged extends CheckBase {
     public EnumSet<Type> getInterest() {
         return EnumSet.of(Type.ANNOTATION);
     }
+
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.ANNOTATION_ATTRIBUTE_ADDED, Code.ANNOTATION_ATTRIBUTE_REMOVED,
+                Code.ANNOTATION_ATTRIBUTE_VALUE_CHANGED);
+    }
 }
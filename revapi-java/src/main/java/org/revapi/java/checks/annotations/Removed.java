@@ -50,4 +50,9 @@ public final class Removed extends CheckBase {
     public EnumSet<Type> getInterest() {
         return EnumSet.of(Type.ANNOTATION);
     }
+
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.ANNOTATION_REMOVED);
+    }
 }
@@ -61,4 +61,9 @@ public final class Added extends CheckBase {
     public EnumSet<Type> getInterest() {
         return EnumSet.of(Type.CLASS);
     }
+
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_ADDED, Code.CLASS_EXTERNAL_CLASS_EXPOSED_IN_API);
+    }
 }
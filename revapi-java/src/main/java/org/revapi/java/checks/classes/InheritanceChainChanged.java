@@ -47,6 +47,13 @@ public final class InheritanceChainChanged extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_FINAL_CLASS_INHERITS_FROM_NEW_CLASS,
+                Code.CLASS_NON_FINAL_CLASS_INHERITS_FROM_NEW_CLASS, Code.CLASS_NOW_CHECKED_EXCEPTION,
+                Code.CLASS_NO_LONGER_INHERITS_FROM_CLASS);
+    }
+
     @Override
     protected List<Difference> doEnd() {
         ActiveElements<JavaTypeElement> types = popIfActive();
@@ -119,7 +126,7 @@ public final class InheritanceChainChanged extends CheckBase {
                 ret.add(createDifference(code, Code.attachmentsFor(types.oldElement, types.newElement, "superClass", str)));
 
                 //additionally add a difference about checked exceptions
-                if (changedToCheckedException(getNewTypeEnvironment().getTypeUtils(), t, oldSuperClasses)) {
+                if (changedToCheckedException(getNewTypeEnvironment(), t, oldSuperClasses)) {
                     ret.add(createDifference(Code.CLASS_NOW_CHECKED_EXCEPTION,
                             Code.attachmentsFor(types.oldElement, types.newElement)));
                 }
@@ -140,10 +147,9 @@ public final class InheritanceChainChanged extends CheckBase {
         TypeElement oldType = oldEl.getDeclaringElement();
         TypeElement newType = newEl.getDeclaringElement();
 
-        List<TypeMirror> oldSuperTypes = Util
-            .getAllSuperClasses(getOldTypeEnvironment().getTypeUtils(), oldType.asType());
-        List<TypeMirror> newSuperTypes = Util
-            .getAllSuperClasses(getNewTypeEnvironment().getTypeUtils(), newType.asType());
+        //copied, because the lists are sorted in place when reporting
+        List<TypeMirror> oldSuperTypes = new ArrayList<>(getOldTypeEnvironment().getAllSuperClasses(oldType.asType()));
+        List<TypeMirror> newSuperTypes = new ArrayList<>(getNewTypeEnvironment().getAllSuperClasses(newType.asType()));
 
         if (oldSuperTypes.size() != newSuperTypes.size()) {
             pushActive(oldEl, newEl, oldSuperTypes, newSuperTypes);
@@ -165,13 +171,13 @@ public final class InheritanceChainChanged extends CheckBase {
         }
     }
 
-    private boolean changedToCheckedException(@Nonnull Types newTypeEnv, @Nonnull TypeMirror newType,
+    private boolean changedToCheckedException(@Nonnull TypeEnvironment newTypeEnv, @Nonnull TypeMirror newType,
         @Nonnull List<TypeMirror> oldTypes) {
 
         if ("java.lang.Exception".equals(Util.toHumanReadableString(newType))) {
             return isTypeThrowable(oldTypes);
         } else {
-            for (TypeMirror sc : Util.getAllSuperClasses(newTypeEnv, newType)) {
+            for (TypeMirror sc : newTypeEnv.getAllSuperClasses(newType)) {
                 if ("java.lang.Exception".equals(Util.toHumanReadableString(sc))) {
                     return isTypeThrowable(oldTypes);
                 }
@@ -191,12 +197,13 @@ public final class InheritanceChainChanged extends CheckBase {
         return false;
     }
 
-    private List<String> superClassChainAsUniqueStrings(@Nonnull TypeMirror cls, @Nonnull Types env) {
-        List<TypeMirror> supers = Util.getAllSuperClasses(env, cls);
+    private List<String> superClassChainAsUniqueStrings(@Nonnull TypeMirror cls, @Nonnull TypeEnvironment env) {
+        List<TypeMirror> supers = env.getAllSuperClasses(cls);
         List<String> ret = new ArrayList<>(supers.size());
 
+        Types types = env.getTypeUtils();
         for (TypeMirror s : supers) {
-            ret.add(Util.toUniqueString(env.erasure(s)));
+            ret.add(Util.toUniqueString(types.erasure(s)));
         }
 
         return ret;
@@ -214,11 +221,9 @@ public final class InheritanceChainChanged extends CheckBase {
             if (el != null) {
                 TypeMirror opposite = el.asType();
 
-                List<String> candidateSuperChain = superClassChainAsUniqueStrings(candidate,
-                    candidateEnvironment.getTypeUtils());
+                List<String> candidateSuperChain = superClassChainAsUniqueStrings(candidate, candidateEnvironment);
 
-                List<String> oppositeSuperChain = superClassChainAsUniqueStrings(opposite,
-                    oppositeEnvironment.getTypeUtils());
+                List<String> oppositeSuperChain = superClassChainAsUniqueStrings(opposite, oppositeEnvironment);
 
                 report = !candidateSuperChain.equals(oppositeSuperChain);
             }
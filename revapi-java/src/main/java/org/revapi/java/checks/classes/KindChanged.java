@@ -38,6 +38,11 @@ public final class KindChanged extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_KIND_CHANGED);
+    }
+
     @Override
     protected void doVisitClass(JavaTypeElement oldType, JavaTypeElement newType) {
         if (oldType != null && newType != null
@@ -22,6 +22,11 @@ public final class Missing extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.MISSING_IN_NEW_API, Code.MISSING_IN_OLD_API);
+    }
+
     @Override
     protected void doVisitClass(@Nullable JavaTypeElement oldType, @Nullable JavaTypeElement newType) {
         boolean oldMissing = oldType != null && isMissing(oldType.getDeclaringElement());
@@ -39,20 +39,25 @@ public final class NoLongerImplementsInterface extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_NO_LONGER_IMPLEMENTS_INTERFACE);
+    }
+
     @Override
     protected void doVisitClass(JavaTypeElement oldType, JavaTypeElement newType) {
         if (!isBothAccessible(oldType, newType)) {
             return;
         }
 
-        List<TypeMirror> newInterfaces = Util.getAllSuperInterfaces(getNewTypeEnvironment().getTypeUtils(),
+        List<TypeMirror> newInterfaces = getNewTypeEnvironment().getAllSuperInterfaces(
                 newType.getModelRepresentation());
 
-        List<TypeMirror> oldInterfaces = Util.getAllSuperInterfaces(getOldTypeEnvironment().getTypeUtils(),
+        List<TypeMirror> oldInterfaces = getOldTypeEnvironment().getAllSuperInterfaces(
                 oldType.getModelRepresentation());
 
         for (TypeMirror oldIface : oldInterfaces) {
-            if (!Util.isSubtype(oldIface, newInterfaces, getOldTypeEnvironment().getTypeUtils())) {
+            if (!getOldTypeEnvironment().isSubtype(oldIface, newInterfaces)) {
                 pushActive(oldType, newType, oldInterfaces, newInterfaces);
                 break;
             }
@@ -75,7 +80,7 @@ public final class NoLongerImplementsInterface extends CheckBase {
         List<TypeMirror> newInterfaces = (List<TypeMirror>) types.context[1];
 
         for (TypeMirror oldIface : oldInterfaces) {
-            if (!Util.isSubtype(oldIface, newInterfaces, getOldTypeEnvironment().getTypeUtils())) {
+            if (!getOldTypeEnvironment().isSubtype(oldIface, newInterfaces)) {
                 result.add(createDifference(Code.CLASS_NO_LONGER_IMPLEMENTS_INTERFACE,
                         Code.attachmentsFor(types.oldElement, types.newElement,
                             "interface", Util.toHumanReadableString(oldIface))));
@@ -37,6 +37,11 @@ public final class NonPublicClassPartOfAPI extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_NON_PUBLIC_PART_OF_API);
+    }
+
     @Override
     protected void doVisitClass(JavaTypeElement oldType, JavaTypeElement newType) {
         if (newType == null) {
@@ -39,6 +39,11 @@ public final class NowImplementsInterface extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_NOW_IMPLEMENTS_INTERFACE);
+    }
+
     @Override
     protected void doVisitClass(JavaTypeElement oldType, JavaTypeElement newType) {
         if (!isBothAccessible(oldType, newType)) {
@@ -51,7 +56,7 @@ public final class NowImplementsInterface extends CheckBase {
         List<? extends TypeMirror> oldInterfaces = oldType.getDeclaringElement().getInterfaces();
 
         for (TypeMirror newIface : newInterfaces) {
-            if (!Util.isSubtype(newIface, oldInterfaces, getNewTypeEnvironment().getTypeUtils())) {
+            if (!getNewTypeEnvironment().isSubtype(newIface, oldInterfaces)) {
                 pushActive(oldType, newType);
                 break;
             }
@@ -71,7 +76,7 @@ public final class NowImplementsInterface extends CheckBase {
         List<? extends TypeMirror> oldInterfaces = types.oldElement.getDeclaringElement().getInterfaces();
 
         for (TypeMirror newIface : newInterfaces) {
-            if (!Util.isSubtype(newIface, oldInterfaces, getNewTypeEnvironment().getTypeUtils())) {
+            if (!getNewTypeEnvironment().isSubtype(newIface, oldInterfaces)) {
                 result.add(
                     createDifference(Code.CLASS_NOW_IMPLEMENTS_INTERFACE,
                             Code.attachmentsFor(types.oldElement, types.newElement,
@@ -38,6 +38,11 @@ public final class Removed extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_EXTERNAL_CLASS_NO_LONGER_EXPOSED_IN_API, Code.CLASS_REMOVED);
+    }
+
     @Override
     protected void doVisitClass(JavaTypeElement oldType, JavaTypeElement newType) {
         if (oldType != null && newType == null && isAccessible(oldType)) {
@@ -17,6 +17,7 @@
 package org.revapi.java.checks.common;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -44,6 +45,11 @@ public abstract class ModifierChanged extends CheckBase {
         this.modifier = modifier;
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(code);
+    }
+
     protected final void doVisit(JavaModelElement oldElement, JavaModelElement newElement) {
         if (!isBothAccessible(oldElement, newElement)) {
             return;
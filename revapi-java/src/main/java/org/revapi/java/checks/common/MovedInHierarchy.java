@@ -1,6 +1,7 @@
 package org.revapi.java.checks.common;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -24,6 +25,11 @@ public abstract class MovedInHierarchy extends CheckBase {
         this.moveDown = moveDown;
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(moveUp, moveDown);
+    }
+
     protected void doVisit(@Nullable JavaModelElement oldEl, @Nullable JavaModelElement newEl) {
         if (!isBothAccessible(oldEl, newEl)) {
             return;
@@ -17,6 +17,7 @@
 package org.revapi.java.checks.common;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 
 import javax.lang.model.element.Element;
@@ -40,6 +41,11 @@ public abstract class VisibilityChanged extends CheckBase {
         this.reportIncrease = reportIncrease;
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(code);
+    }
+
     protected final void doVisit(JavaModelElement oldElement, JavaModelElement newElement) {
         if (oldElement != null && newElement != null) {
             boolean oldAccessible = isAccessible(oldElement);
@@ -38,6 +38,11 @@ public final class Added extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_ADDED, Code.FIELD_ADDED_STATIC_FIELD);
+    }
+
     @Override
     protected void doVisitField(JavaFieldElement oldField, JavaFieldElement newField) {
         if (oldField == null && newField != null && isAccessible(newField)) {
@@ -37,6 +37,11 @@ public final class ConstantValueChanged extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_CONSTANT_VALUE_CHANGED);
+    }
+
     @Override
     protected void doVisitField(JavaFieldElement oldField, JavaFieldElement newField) {
         if (!isBothAccessible(oldField, newField)) {
@@ -44,6 +44,11 @@ public class EnumConstantsOrderChanged extends CheckBase {
         return EnumSet.of(Type.CLASS, Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_ENUM_CONSTANT_ORDER_CHANGED);
+    }
+
     @Override
     protected void doVisitClass(@Nullable JavaTypeElement oldType, @Nullable JavaTypeElement newType) {
         isEnumClass = newType != null && newType.getDeclaringElement().getKind() == ElementKind.ENUM;
@@ -37,6 +37,11 @@ public final class NoLongerConstant extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_NO_LONGER_CONSTANT);
+    }
+
     @Override
     protected void doVisitField(JavaFieldElement oldField, JavaFieldElement newField) {
         if (!isBothAccessible(oldField, newField)) {
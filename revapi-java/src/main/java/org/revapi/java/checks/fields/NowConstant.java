@@ -37,6 +37,11 @@ public final class NowConstant extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_NOW_CONSTANT);
+    }
+
     @Override
     protected void doVisitField(JavaFieldElement oldField, JavaFieldElement newField) {
         if (!isBothAccessible(oldField, newField)) {
@@ -36,6 +36,11 @@ public final class Removed extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_CONSTANT_REMOVED, Code.FIELD_REMOVED);
+    }
+
     @Override
     protected void doVisitField(JavaFieldElement oldField, JavaFieldElement newField) {
         if (oldField != null && newField == null && isAccessible(oldField)) {
@@ -29,7 +29,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -70,6 +72,14 @@ import org.revapi.java.spi.Util;
 public final class SerialVersionUidUnchanged extends CheckBase {
 
     private static final String SERIAL_VERSION_UID_FIELD_NAME = "serialVersionUID";
+
+    /**
+     * The computed ids of the types in the old and new type environment. A type is checked again in each of its
+     * subtypes that inherit its serialVersionUID, so the ids are remembered until the environments change.
+     */
+    private final Map<TypeElement, Long> oldIds = new HashMap<>();
+    private final Map<TypeElement, Long> newIds = new HashMap<>();
+
     private boolean strict = false;
 
     @Override
@@ -77,6 +87,11 @@ public final class SerialVersionUidUnchanged extends CheckBase {
         return EnumSet.of(Type.FIELD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.FIELD_SERIAL_VERSION_UID_UNCHANGED);
+    }
+
     @Override
     public void initialize(@Nonnull AnalysisContext analysisContext) {
         super.initialize(analysisContext);
@@ -86,6 +101,18 @@ public final class SerialVersionUidUnchanged extends CheckBase {
         }
     }
 
+    @Override
+    public void setOldTypeEnvironment(@Nonnull TypeEnvironment env) {
+        super.setOldTypeEnvironment(env);
+        oldIds.clear();
+    }
+
+    @Override
+    public void setNewTypeEnvironment(@Nonnull TypeEnvironment env) {
+        super.setNewTypeEnvironment(env);
+        newIds.clear();
+    }
+
     @Nullable
     @Override
     public String getExtensionId() {
@@ -140,13 +167,8 @@ public final class SerialVersionUidUnchanged extends CheckBase {
         TypeElement oldType = (TypeElement) oldField.getDeclaringElement().getEnclosingElement();
         TypeElement newType = (TypeElement) newField.getDeclaringElement().getEnclosingElement();
 
-        long computedOldSUID = strict
-                ? computeSerialVersionUID(oldType, getOldTypeEnvironment())
-                : computeStructuralId(oldType, getOldTypeEnvironment());
-
-        long computedNewSUID = strict
-                ? computeSerialVersionUID(newType, getNewTypeEnvironment())
-                : computeStructuralId(newType, getNewTypeEnvironment());
+        long computedOldSUID = getComputedId(oldType, getOldTypeEnvironment(), oldIds);
+        long computedNewSUID = getComputedId(newType, getNewTypeEnvironment(), newIds);
 
         Long actualOldSUID = (Long) oldField.getDeclaringElement().getConstantValue();
         Long actualNewSUID = (Long) newField.getDeclaringElement().getConstantValue();
@@ -169,6 +191,11 @@ public final class SerialVersionUidUnchanged extends CheckBase {
                 Code.attachmentsFor(fields.oldElement, fields.newElement, "serialVersionUID", actualSUID.toString())));
     }
 
+    private long getComputedId(TypeElement type, TypeEnvironment environment, Map<TypeElement, Long> ids) {
+        return ids.computeIfAbsent(type,
+                t -> strict ? computeSerialVersionUID(t, environment) : computeStructuralId(t, environment));
+    }
+
     public static long computeStructuralId(TypeElement type, TypeEnvironment environment) {
         Predicate<Element> serializableFields = e -> {
             Set<Modifier> mods = e.getModifiers();
@@ -185,7 +212,7 @@ public final class SerialVersionUidUnchanged extends CheckBase {
 
         Types types = environment.getTypeUtils();
 
-        for (TypeMirror st: Util.getAllSuperClasses(types, type.asType())) {
+        for (TypeMirror st: environment.getAllSuperClasses(type.asType())) {
             Element ste = types.asElement(st);
             ElementFilter.fieldsIn(ste.getEnclosedElements()).stream()
                     .filter(serializableFields)
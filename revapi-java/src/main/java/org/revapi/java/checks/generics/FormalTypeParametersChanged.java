@@ -47,6 +47,12 @@ public final class FormalTypeParametersChanged extends CheckBase {
         return EnumSet.of(Type.CLASS, Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.GENERICS_ELEMENT_NOW_PARAMETERIZED, Code.GENERICS_FORMAL_TYPE_PARAMETER_ADDED,
+                Code.GENERICS_FORMAL_TYPE_PARAMETER_CHANGED, Code.GENERICS_FORMAL_TYPE_PARAMETER_REMOVED);
+    }
+
     @Override
     protected void doVisitClass(@Nullable JavaTypeElement oldType, @Nullable JavaTypeElement newType) {
         doVisit(oldType, newType);
@@ -42,6 +42,11 @@ public class SuperTypeParametersChanged extends CheckBase {
         return EnumSet.of(Type.CLASS);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.CLASS_SUPER_TYPE_TYPE_PARAMETERS_CHANGED);
+    }
+
     @Override
     protected void doVisitClass(@Nullable JavaTypeElement oldType, @Nullable JavaTypeElement newType) {
         if (!isBothAccessible(oldType, newType)) {
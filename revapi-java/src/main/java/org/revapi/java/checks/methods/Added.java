@@ -58,6 +58,13 @@ public final class Added extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_ABSTRACT_METHOD_ADDED, Code.METHOD_ADDED, Code.METHOD_ADDED_TO_INTERFACE,
+                Code.METHOD_DEFAULT_METHOD_ADDED_TO_INTERFACE, Code.METHOD_FINAL_METHOD_ADDED_TO_NON_FINAL_CLASS,
+                Code.METHOD_STATIC_METHOD_ADDED_TO_INTERFACE);
+    }
+
     @Override
     protected void doVisitMethod(JavaMethodElement oldMethod, JavaMethodElement newMethod) {
         if (oldMethod == null && newMethod != null && isAccessible(newMethod)) {
@@ -40,6 +40,12 @@ public final class DefaultValueChanged extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_DEFAULT_VALUE_ADDED, Code.METHOD_DEFAULT_VALUE_CHANGED,
+                Code.METHOD_DEFAULT_VALUE_REMOVED);
+    }
+
     @Override
     protected List<Difference> doEnd() {
         ActiveElements<JavaMethodElement> methods = popIfActive();
@@ -62,6 +62,12 @@ public class ExceptionsThrownChanged extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_CHECKED_EXCEPTION_ADDED, Code.METHOD_CHECKED_EXCEPTION_REMOVED,
+                Code.METHOD_RUNTIME_EXCEPTION_ADDED, Code.METHOD_RUNTIME_EXCEPTION_REMOVED);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         if (!isBothAccessible(oldMethod, newMethod)) {
@@ -41,6 +41,11 @@ public class NoLongerDefault extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_NO_LONGER_DEFAULT);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         if (!isBothAccessible(oldMethod, newMethod)) {
@@ -42,6 +42,11 @@ public final class NowFinal extends ModifierChanged {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_NOW_FINAL, Code.METHOD_NOW_FINAL_IN_FINAL_CLASS);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         doVisit(oldMethod, newMethod);
@@ -38,6 +38,11 @@ public final class NumberOfParametersChanged extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_NUMBER_OF_PARAMETERS_CHANGED);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         if (!isBothAccessible(oldMethod, newMethod)) {
@@ -42,6 +42,11 @@ public final class ParameterTypeChanged extends CheckBase {
         return EnumSet.of(Type.METHOD, Type.METHOD_PARAMETER);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_PARAMETER_TYPE_CHANGED, Code.METHOD_PARAMETER_TYPE_PARAMETER_CHANGED);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         skip = oldMethod == null || newMethod == null ||
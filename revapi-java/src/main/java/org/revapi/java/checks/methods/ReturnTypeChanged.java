@@ -42,6 +42,12 @@ public final class ReturnTypeChanged extends CheckBase {
         return EnumSet.of(Type.METHOD);
     }
 
+    @Override
+    public EnumSet<Code> getProducedCodes() {
+        return EnumSet.of(Code.METHOD_RETURN_TYPE_CHANGED, Code.METHOD_RETURN_TYPE_CHANGED_COVARIANTLY,
+                Code.METHOD_RETURN_TYPE_TYPE_PARAMETERS_CHANGED);
+    }
+
     @Override
     protected void doVisitMethod(@Nullable JavaMethodElement oldMethod, @Nullable JavaMethodElement newMethod) {
         if (!isBothAccessible(oldMethod, newMethod)) {
@@ -118,6 +124,6 @@ public final class ReturnTypeChanged extends CheckBase {
     }
 
     private boolean isCovariant(TypeMirror superType, TypeMirror subType) {
-        return Util.isSubtype(subType, Collections.singletonList(superType), getNewTypeEnvironment().getTypeUtils());
+        return getNewTypeEnvironment().isSubtype(subType, Collections.singletonList(superType));
     }
 }
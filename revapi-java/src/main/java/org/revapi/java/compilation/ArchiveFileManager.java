@@ -0,0 +1,301 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java.compilation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import org.revapi.Archive;
+import org.revapi.java.compilation.ArchiveIndexCache.ArchivedClass;
+
+/**
+ * A file manager that serves the class files straight from the archives so that the compiler never needs to have
+ * them on the filesystem.
+ *
+ * <p>The archives backed by a local file are read using the central directory of the zip file, the rest are read
+ * into memory once (see {@link ArchiveIndexCache}). The class path of the compiler as well as any location registered
+ * using {@link #setArchives(Location, Iterable)} is served from the archives, the rest of the locations (like the
+ * platform class path) are delegated to the standard file manager. The output of the compiler is discarded.
+ *
+ * <p>The classes and packages of each location are indexed so that finding a class or listing a package doesn't
+ * depend on the number of the archives in the location.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class ArchiveFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    private final ArchiveIndexCache cache;
+    private final Map<Archive, ArchiveIndexCache.Index> indexes = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<ArchiveIndexCache.Index, Archive> archives = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<Location, LocationIndex> locations = new ConcurrentHashMap<>();
+
+    /**
+     * @param cache the cache of the archive indices to use
+     */
+    ArchiveFileManager(StandardJavaFileManager fileManager, ArchiveIndexCache cache) {
+        super(fileManager);
+        this.cache = cache;
+        locations.put(StandardLocation.CLASS_PATH, new LocationIndex(Collections.emptyList()));
+    }
+
+    /**
+     * Reads the index of the classes in the archive. This needs to be done for each archive before it can be used in
+     * any location.
+     *
+     * @param archive the archive to index
+     * @throws IOException on failure to read the archive
+     */
+    void addArchive(Archive archive) throws IOException {
+        ArchiveIndexCache.Index index = cache.acquire(archive);
+
+        ArchiveIndexCache.Index previous = indexes.put(archive, index);
+        if (previous != null) {
+            cache.release(previous);
+        }
+        //identical archives share the index, the first one on the class path wins
+        archives.putIfAbsent(index, archive);
+    }
+
+    /**
+     * Makes the location serve the classes from the provided archives, in the provided order. The archives must
+     * have been {@link #addArchive(Archive) added} before.
+     */
+    void setArchives(Location location, Iterable<? extends Archive> archives) {
+        List<ArchiveIndexCache.Index> idxs = new ArrayList<>();
+        for (Archive a : archives) {
+            ArchiveIndexCache.Index idx = indexes.get(a);
+            if (idx == null) {
+                throw new IllegalArgumentException("Archive " + a.getName() + " has not been indexed.");
+            }
+            idxs.add(idx);
+        }
+
+        locations.put(location, new LocationIndex(idxs));
+    }
+
+    /**
+     * @return the archive containing the class file or null if the file doesn't come from any archive
+     */
+    @Nullable
+    Archive getArchive(JavaFileObject file) {
+        return file instanceof ArchivedClass ? archives.get(((ArchivedClass) file).index) : null;
+    }
+
+    /**
+     * @return the SHA-256 digests of the class files in the archive keyed by the binary names of the classes
+     * @throws IllegalArgumentException if the archive has not been {@link #addArchive(Archive) added}
+     * @throws IOException on failure to read the archive
+     */
+    Map<String, byte[]> getClassDigests(Archive archive) throws IOException {
+        ArchiveIndexCache.Index idx = indexes.get(archive);
+        if (idx == null) {
+            throw new IllegalArgumentException("Archive " + archive.getName() + " has not been indexed.");
+        }
+
+        return idx.getClassDigests();
+    }
+
+    @Override
+    public ClassLoader getClassLoader(Location location) {
+        //we never load any plugins from the archives
+        return locations.containsKey(location) ? null : super.getClassLoader(location);
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds,
+                                         boolean recurse) throws IOException {
+        LocationIndex idx = locations.get(location);
+        if (idx == null) {
+            return super.list(location, packageName, kinds, recurse);
+        }
+
+        if (!kinds.contains(JavaFileObject.Kind.CLASS)) {
+            return Collections.emptyList();
+        }
+
+        if (!recurse) {
+            return Collections.unmodifiableList(
+                    idx.classesByPackage.getOrDefault(packageName, Collections.emptyList()));
+        }
+
+        List<JavaFileObject> ret = new ArrayList<>();
+        String prefix = packageName + ".";
+        for (Map.Entry<String, List<ArchivedClass>> e : idx.classesByPackage.entrySet()) {
+            String pkg = e.getKey();
+            if (packageName.isEmpty() || pkg.equals(packageName) || pkg.startsWith(prefix)) {
+                ret.addAll(e.getValue());
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        return file instanceof ArchivedClass ? ((ArchivedClass) file).binaryName
+                : super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof ArchivedClass || b instanceof ArchivedClass || a instanceof DiscardedOutput
+                || b instanceof DiscardedOutput) {
+            return a.equals(b);
+        }
+
+        return super.isSameFile(a, b);
+    }
+
+    @Override
+    public boolean hasLocation(Location location) {
+        return locations.containsKey(location) || super.hasLocation(location);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForInput(Location location, String className, JavaFileObject.Kind kind)
+            throws IOException {
+        LocationIndex idx = locations.get(location);
+        if (idx == null) {
+            return super.getJavaFileForInput(location, className, kind);
+        }
+
+        return kind == JavaFileObject.Kind.CLASS ? idx.classes.get(className) : null;
+    }
+
+    @Override
+    public FileObject getFileForInput(Location location, String packageName, String relativeName)
+            throws IOException {
+        LocationIndex idx = locations.get(location);
+        if (idx == null) {
+            return super.getFileForInput(location, packageName, relativeName);
+        }
+
+        if (!relativeName.endsWith(".class")) {
+            return null;
+        }
+
+        String simpleName = relativeName.substring(0, relativeName.length() - ".class".length()).replace('/', '.');
+        return idx.classes.get(packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                               FileObject sibling) throws IOException {
+        return new DiscardedOutput(className, kind);
+    }
+
+    @Override
+    public FileObject getFileForOutput(Location location, String packageName, String relativeName,
+                                       FileObject sibling) throws IOException {
+        return new DiscardedOutput(packageName + "." + relativeName, JavaFileObject.Kind.OTHER);
+    }
+
+    @Override
+    public void close() throws IOException {
+        List<ArchiveIndexCache.Index> idxs;
+        synchronized (indexes) {
+            idxs = new ArrayList<>(indexes.values());
+            indexes.clear();
+        }
+        archives.clear();
+        locations.clear();
+
+        IOException failure = null;
+        for (ArchiveIndexCache.Index idx : idxs) {
+            try {
+                cache.release(idx);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        super.close();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The classes of all the archives in a location. The first class with given name wins, like on a class path.
+     */
+    private static final class LocationIndex {
+        final Map<String, ArchivedClass> classes;
+        final Map<String, List<ArchivedClass>> classesByPackage;
+
+        LocationIndex(List<ArchiveIndexCache.Index> indexes) {
+            if (indexes.size() == 1) {
+                classes = indexes.get(0).classes;
+                classesByPackage = indexes.get(0).classesByPackage;
+                return;
+            }
+
+            classes = new HashMap<>();
+            classesByPackage = new LinkedHashMap<>();
+            for (ArchiveIndexCache.Index idx : indexes) {
+                for (Map.Entry<String, List<ArchivedClass>> e : idx.classesByPackage.entrySet()) {
+                    for (ArchivedClass c : e.getValue()) {
+                        if (classes.putIfAbsent(c.binaryName, c) == null) {
+                            classesByPackage.computeIfAbsent(e.getKey(), p -> new ArrayList<>()).add(c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class DiscardedOutput extends SimpleJavaFileObject {
+        DiscardedOutput(String name, Kind kind) {
+            super(URI.create("discarded:/" + name.replaceAll("[^A-Za-z0-9._$-]", "_")), kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() throws IOException {
+            return new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            };
+        }
+    }
+}
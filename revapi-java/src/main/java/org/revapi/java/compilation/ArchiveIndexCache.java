@@ -0,0 +1,412 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java.compilation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+import javax.tools.SimpleJavaFileObject;
+
+import org.revapi.Archive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the indices of the classes contained in the archives. One instance can be shared by the analyses of the old
+ * and new API so that the archives that are part of both of them (which is usually the case of most of the
+ * supplementary archives) are only indexed once. The digests of the classes used by the incremental analysis are
+ * likewise computed only once for such archives.
+ *
+ * <p>The archives backed by a local file are identified by the file, its size and last modification time, the rest
+ * of the archives are identified by the SHA-256 digest of their contents. Such archives are copied to a temporary
+ * file and the digest is computed while copying. The copy is only kept and indexed if the index of the same contents
+ * is not in the cache yet. An index stays in the cache as long as it is used by some analysis.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+public final class ArchiveIndexCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ArchiveIndexCache.class);
+
+    private final Map<Object, Holder> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the index of the archive, reading it if it is not cached yet. Each index obtained using this method
+     * needs to be {@link #release(Index) released} once it is no longer needed.
+     *
+     * @param archive the archive to get the index of
+     * @return the index
+     * @throws IOException on failure to read the archive
+     */
+    Index acquire(Archive archive) throws IOException {
+        File file = localFile(archive);
+        if (file != null) {
+            return acquire(new FileKey(file.getPath(), file.length(), file.lastModified()), archive,
+                    () -> new ZipFileIndex(archive, file, false));
+        }
+
+        //the archives that are not backed by a file are copied to a temporary file so that they don't need to be
+        //kept in memory. The copy is identified by its contents, so the identical archives of the old and new API are
+        //only indexed once, using the copy of whichever of them comes first.
+        MessageDigest digest = newDigest();
+        Path copy = Files.createTempFile("revapi-java-", ".jar");
+        boolean copyUsed = false;
+        try {
+            try (InputStream in = new DigestInputStream(archive.openStream(), digest)) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            boolean[] indexed = new boolean[1];
+            Index ret = acquire(new ContentKey(digest.digest()), archive, () -> {
+                Index index = new ZipFileIndex(archive, copy.toFile(), true);
+                indexed[0] = true;
+                return index;
+            });
+
+            copyUsed = indexed[0];
+            return ret;
+        } finally {
+            if (!copyUsed) {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    private Index acquire(Object key, Archive archive, IndexReader reader) throws IOException {
+        while (true) {
+            Holder holder = indexes.computeIfAbsent(key, k -> new Holder(k));
+            synchronized (holder) {
+                if (holder.removed) {
+                    //released concurrently, try again with a new holder
+                    continue;
+                }
+
+                if (holder.index == null) {
+                    holder.index = reader.read();
+                    holder.index.holder = holder;
+                } else {
+                    LOG.debug("Reusing the index of archive {} for {}.", holder.index.archive.getName(),
+                            archive.getName());
+                }
+
+                holder.users++;
+                return holder.index;
+            }
+        }
+    }
+
+    /**
+     * Releases the index obtained using {@link #acquire(Archive)}. The index is closed once it is no longer used by
+     * anyone.
+     */
+    void release(Index index) throws IOException {
+        Holder holder = index.holder;
+        synchronized (holder) {
+            if (--holder.users > 0) {
+                return;
+            }
+
+            holder.removed = true;
+            indexes.remove(holder.key, holder);
+        }
+
+        index.close();
+    }
+
+    /**
+     * @return the normalized absolute file backing the archive or null if the archive needs to be read through its
+     * stream
+     */
+    @Nullable
+    private static File localFile(Archive archive) {
+        if (!(archive instanceof Archive.FileBacked)) {
+            return null;
+        }
+
+        Path path = ((Archive.FileBacked) archive).getFile().toPath().toAbsolutePath().normalize();
+
+        return Files.isRegularFile(path) ? path.toFile() : null;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported.", e);
+        }
+    }
+
+    private static byte[] digest(InputStream data) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new DigestInputStream(data, digest)) {
+            while (in.read(buffer) >= 0) {
+                //the digest is updated by the stream
+            }
+        }
+        return digest.digest();
+    }
+
+    private static boolean isClass(String entryName) {
+        //the versioned classes of the multi-release jars are not considered, just like on the plain class path
+        return entryName.endsWith(".class") && !entryName.startsWith("META-INF/");
+    }
+
+    private static URI entryUri(Archive archive, String entryName) {
+        try {
+            return new URI("archive", null, "/" + archive.getName() + "!/" + entryName, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Failed to construct a URI of " + entryName + " in archive "
+                    + archive.getName(), e);
+        }
+    }
+
+    private static final class Holder {
+        final Object key;
+        Index index;
+        int users;
+        boolean removed;
+
+        Holder(Object key) {
+            this.key = key;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexReader {
+        Index read() throws IOException;
+    }
+
+    private static final class ContentKey {
+        final byte[] digest;
+
+        ContentKey(byte[] digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ContentKey && Arrays.equals(((ContentKey) o).digest, digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(digest);
+        }
+    }
+
+    private static final class FileKey {
+        final String path;
+        final long size;
+        final long lastModified;
+
+        FileKey(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileKey)) {
+                return false;
+            }
+
+            FileKey other = (FileKey) o;
+            return size == other.size && lastModified == other.lastModified && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified);
+        }
+    }
+
+    /**
+     * The index of the classes in a single archive.
+     */
+    abstract static class Index {
+        final Archive archive;
+        final Map<String, ArchivedClass> classes = new HashMap<>();
+        final Map<String, List<ArchivedClass>> classesByPackage = new LinkedHashMap<>();
+        private Holder holder;
+        private Map<String, byte[]> classDigests;
+
+        Index(Archive archive) {
+            this.archive = archive;
+        }
+
+        /**
+         * The digests are computed just once, even if the index is shared by several analyses.
+         *
+         * @return the SHA-256 digests of the class files in the archive keyed by the binary names of the classes
+         */
+        synchronized Map<String, byte[]> getClassDigests() throws IOException {
+            if (classDigests == null) {
+                Map<String, byte[]> ds = new HashMap<>(classes.size());
+                for (ArchivedClass c : classes.values()) {
+                    ds.put(c.binaryName, digest(open(c.entryName)));
+                }
+                classDigests = Collections.unmodifiableMap(ds);
+            }
+
+            return classDigests;
+        }
+
+        void add(String entryName) {
+            String binaryName = entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.');
+            if (classes.containsKey(binaryName)) {
+                return;
+            }
+
+            ArchivedClass cls = new ArchivedClass(this, entryName, binaryName);
+            classes.put(binaryName, cls);
+
+            int dotIdx = binaryName.lastIndexOf('.');
+            String pkg = dotIdx < 0 ? "" : binaryName.substring(0, dotIdx);
+            classesByPackage.computeIfAbsent(pkg, p -> new ArrayList<>()).add(cls);
+        }
+
+        abstract InputStream open(String entryName) throws IOException;
+
+        abstract void close() throws IOException;
+    }
+
+    private static final class ZipFileIndex extends Index {
+        private final ZipFile zip;
+        private final File temporaryFile;
+
+        /**
+         * @param temporary whether the file is a temporary copy of the archive that should be deleted once the index
+         *                  is closed
+         */
+        ZipFileIndex(Archive archive, File file, boolean temporary) throws IOException {
+            super(archive);
+            this.temporaryFile = temporary ? file : null;
+
+            ZipFile zip;
+            try {
+                zip = new ZipFile(file);
+            } catch (ZipException e) {
+                LOG.warn("Archive " + archive.getName() + " (" + file + ") is not a valid zip file. It will be" +
+                        " considered empty.", e);
+                zip = null;
+            }
+            this.zip = zip;
+
+            if (zip != null) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry e = entries.nextElement();
+                    if (!e.isDirectory() && isClass(e.getName())) {
+                        add(e.getName());
+                    }
+                }
+            }
+        }
+
+        @Override
+        InputStream open(String entryName) throws IOException {
+            ZipEntry entry = zip.getEntry(entryName);
+            if (entry == null) {
+                throw new IOException("Entry " + entryName + " not found in archive " + archive.getName());
+            }
+
+            return zip.getInputStream(entry);
+        }
+
+        @Override
+        void close() throws IOException {
+            try {
+                if (zip != null) {
+                    zip.close();
+                }
+            } finally {
+                if (temporaryFile != null) {
+                    Files.deleteIfExists(temporaryFile.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * A class file in an archive.
+     */
+    static final class ArchivedClass extends SimpleJavaFileObject {
+        final Index index;
+        final String entryName;
+        final String binaryName;
+
+        ArchivedClass(Index index, String entryName, String binaryName) {
+            super(entryUri(index.archive, entryName), Kind.CLASS);
+            this.index = index;
+            this.entryName = entryName;
+            this.binaryName = binaryName;
+        }
+
+        @Override
+        public String getName() {
+            return index.archive.getName() + "(" + entryName + ")";
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            return index.open(entryName);
+        }
+
+        @Override
+        public boolean isNameCompatible(String simpleName, Kind kind) {
+            if (kind != Kind.CLASS) {
+                return false;
+            }
+
+            String fileName = simpleName + ".class";
+            return entryName.equals(fileName) || entryName.endsWith("/" + fileName);
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java.compilation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A purpose-built reader of class files that reads just enough of a class file to determine the canonical name of
+ * the class it contains.
+ *
+ * <p>This is only a helper of the {@link ClasspathScanner}, which uses the canonical names to look up the nested
+ * classes in javac. It is not an alternative to javac - the element model is still built from the javac model of the
+ * scanned classes.
+ *
+ * <p>Javac can only look up the types by their canonical names. The canonical name of a nested class cannot be
+ * reliably derived from its binary name though, because a dollar sign in the binary name can either be a part of a
+ * simple name or separate a nested class from its enclosing class. Guessing means asking the compiler to load
+ * classes that might not exist. Also the anonymous and local classes, which have no canonical name, would have to be
+ * fully loaded by the compiler only to find out they can't be looked up.
+ *
+ * <p>The {@code InnerClasses} attribute of a class file describes all the classes enclosing the class, so reading
+ * it is enough to determine the canonical name exactly.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class ClassFileReader {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassFileReader() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Reads the class file from the stream and returns the canonical name of the class. The stream is not closed.
+     *
+     * @param classFile the stream with the contents of the class file
+     * @return the canonical name of the class or null if the class is anonymous or local and therefore doesn't have
+     * a canonical name
+     * @throws IOException if the stream doesn't contain a valid class file or fails to be read
+     */
+    @Nullable
+    static String readCanonicalName(InputStream classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(classFile));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+
+        //minor and major version
+        skip(in, 4);
+
+        int constantPoolCount = in.readUnsignedShort();
+
+        String[] utf8s = new String[constantPoolCount];
+        int[] classNames = new int[constantPoolCount];
+
+        for (int i = 1; i < constantPoolCount; ++i) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8s[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skip(in, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skip(in, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skip(in, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skip(in, 8);
+                    //these take 2 slots in the constant pool
+                    ++i;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + ".");
+            }
+        }
+
+        //access flags
+        skip(in, 2);
+        String thisClass = className(in.readUnsignedShort(), utf8s, classNames);
+
+        //super class
+        skip(in, 2);
+
+        int interfacesCount = in.readUnsignedShort();
+        skip(in, 2 * interfacesCount);
+
+        //fields and methods
+        skipMembers(in);
+        skipMembers(in);
+
+        //inner class name -> {outer class name, inner simple name}
+        Map<String, String[]> innerClasses = new HashMap<>();
+
+        int attributesCount = in.readUnsignedShort();
+        for (int i = 0; i < attributesCount; ++i) {
+            String name = utf8(in.readUnsignedShort(), utf8s);
+            long length = in.readInt() & 0xFFFFFFFFL;
+            if (!"InnerClasses".equals(name)) {
+                skip(in, length);
+                continue;
+            }
+
+            int numberOfClasses = in.readUnsignedShort();
+            for (int j = 0; j < numberOfClasses; ++j) {
+                int inner = in.readUnsignedShort();
+                int outer = in.readUnsignedShort();
+                int innerName = in.readUnsignedShort();
+                //access flags
+                skip(in, 2);
+
+                innerClasses.put(className(inner, utf8s, classNames),
+                        new String[]{outer == 0 ? null : className(outer, utf8s, classNames),
+                                innerName == 0 ? null : utf8(innerName, utf8s)});
+            }
+        }
+
+        Deque<String> simpleNames = new ArrayDeque<>();
+        String current = thisClass;
+        String[] entry;
+        while ((entry = innerClasses.get(current)) != null) {
+            if (entry[0] == null || entry[1] == null) {
+                //anonymous or local class
+                return null;
+            }
+
+            simpleNames.push(entry[1]);
+            current = entry[0];
+
+            if (simpleNames.size() > innerClasses.size()) {
+                throw new IOException("Cyclic InnerClasses attribute in class " + thisClass + ".");
+            }
+        }
+
+        StringBuilder ret = new StringBuilder(current.replace('/', '.'));
+        for (String simpleName : simpleNames) {
+            ret.append('.').append(simpleName);
+        }
+
+        return ret.toString();
+    }
+
+    private static String className(int classIndex, String[] utf8s, int[] classNames) throws IOException {
+        if (classIndex <= 0 || classIndex >= classNames.length || classNames[classIndex] <= 0
+                || classNames[classIndex] >= utf8s.length || utf8s[classNames[classIndex]] == null) {
+            throw new IOException("Invalid class reference " + classIndex + ".");
+        }
+
+        return utf8s[classNames[classIndex]];
+    }
+
+    private static String utf8(int utf8Index, String[] utf8s) throws IOException {
+        if (utf8Index <= 0 || utf8Index >= utf8s.length || utf8s[utf8Index] == null) {
+            throw new IOException("Invalid string reference " + utf8Index + ".");
+        }
+
+        return utf8s[utf8Index];
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; ++i) {
+            //access flags, name and descriptor
+            skip(in, 6);
+            int attributesCount = in.readUnsignedShort();
+            for (int j = 0; j < attributesCount; ++j) {
+                //name
+                skip(in, 2);
+                skip(in, in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static void skip(DataInputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                //skip() can return 0 even before the end of the stream, so make sure we're not at the end
+                in.readByte();
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+}
@@ -2,19 +2,17 @@ package org.revapi.java.compilation;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
 
 import static org.revapi.java.AnalysisConfiguration.MissingClassReporting.ERROR;
 import static org.revapi.java.AnalysisConfiguration.MissingClassReporting.REPORT;
 import static org.revapi.java.model.JavaElementFactory.elementFor;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
-import java.util.AbstractMap;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
@@ -33,6 +31,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -59,7 +58,6 @@ import javax.lang.model.util.SimpleTypeVisitor8;
 import javax.lang.model.util.Types;
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 
 import org.revapi.Archive;
@@ -70,6 +68,7 @@ import org.revapi.java.model.JavaElementBase;
 import org.revapi.java.model.JavaElementFactory;
 import org.revapi.java.model.MethodElement;
 import org.revapi.java.model.MissingClassElement;
+import org.revapi.java.spi.JavaElement;
 import org.revapi.java.spi.IgnoreCompletionFailures;
 import org.revapi.java.spi.UseSite;
 import org.revapi.java.spi.Util;
@@ -91,17 +90,17 @@ final class ClasspathScanner {
             StandardLocation.CLASS_PATH, StandardLocation.PLATFORM_CLASS_PATH
     };
 
-    private final StandardJavaFileManager fileManager;
+    private final ArchiveFileManager fileManager;
     private final ProbingEnvironment environment;
-    private final Map<Archive, File> classPath;
-    private final Map<Archive, File> additionalClassPath;
+    private final List<Archive> classPath;
+    private final List<Archive> additionalClassPath;
     private final AnalysisConfiguration.MissingClassReporting missingClassReporting;
     private final boolean ignoreMissingAnnotations;
     private final InclusionFilter inclusionFilter;
     private final boolean defaultInclusionCase;
 
-    ClasspathScanner(StandardJavaFileManager fileManager, ProbingEnvironment environment,
-                     Map<Archive, File> classPath, Map<Archive, File> additionalClassPath,
+    ClasspathScanner(ArchiveFileManager fileManager, ProbingEnvironment environment,
+                     List<Archive> classPath, List<Archive> additionalClassPath,
                      AnalysisConfiguration.MissingClassReporting missingClassReporting,
                      boolean ignoreMissingAnnotations, InclusionFilter inclusionFilter) {
         this.fileManager = fileManager;
@@ -117,17 +116,17 @@ final class ClasspathScanner {
     }
 
     void initTree() throws IOException {
-        List<ArchiveLocation> classPathLocations = classPath.keySet().stream().map(ArchiveLocation::new)
+        List<ArchiveLocation> classPathLocations = classPath.stream().map(ArchiveLocation::new)
                 .collect(toList());
 
         Scanner scanner = new Scanner();
 
         for (ArchiveLocation loc : classPathLocations) {
-            scanner.scan(loc, classPath.get(loc.getArchive()), true);
+            scanner.scan(loc, true);
         }
 
         SyntheticLocation allLoc = new SyntheticLocation();
-        fileManager.setLocation(allLoc, classPath.values());
+        fileManager.setArchives(allLoc, classPath);
 
         Function<String, JavaFileObject> searchHard = className ->
                 Stream.concat(Stream.of(allLoc), Stream.of(POSSIBLE_SYSTEM_CLASS_LOCATIONS))
@@ -143,66 +142,34 @@ final class ClasspathScanner {
 
         Set<TypeElement> lastUnknowns = Collections.emptySet();
 
-        Map<String, ArchiveLocation> cachedArchives = new HashMap<>(additionalClassPath.size());
+        Set<Archive> supplementaryArchives = Collections.newSetFromMap(new IdentityHashMap<>());
+        supplementaryArchives.addAll(additionalClassPath);
+
+        Map<Archive, ArchiveLocation> cachedArchives = new IdentityHashMap<>(additionalClassPath.size());
+
+        //the types that are not found in the supplementary archives don't need to be looked up again in the next
+        //rounds
+        Set<TypeElement> notInSupplementaryArchives = new HashSet<>();
 
         while (!scanner.requiredTypes.isEmpty() && !lastUnknowns.equals(scanner.requiredTypes.keySet())) {
             lastUnknowns = new HashSet<>(scanner.requiredTypes.keySet());
             for (TypeElement t : lastUnknowns) {
-                String name = environment.getElementUtils().getBinaryName(t).toString();
-                JavaFileObject jfo = searchHard.apply(name);
-                if (jfo == null) {
-                    //this type is really missing
+                if (notInSupplementaryArchives.contains(t)) {
                     continue;
                 }
 
-                URI uri = jfo.toUri();
-                String path;
-                if ("jar".equals(uri.getScheme())) {
-                    //we pass our archives as jars, so let's dig only into those
-                    path = uri.getSchemeSpecificPart();
-
-                    //jar:file:/path .. let's get rid of the "file:" part
-                    int colonIdx = path.indexOf(':');
-                    if (colonIdx >= 0) {
-                        path = path.substring(colonIdx + 1);
-                    }
-
-                    //separate the file path from the in-jar path
-                    path = path.substring(0, path.lastIndexOf('!'));
-
-                    //remove superfluous forward slashes at the start of the path, if any
-                    int lastSlashIdx = -1;
-                    for (int i = 0; i < path.length() - 1; ++i) {
-                        if (path.charAt(i) == '/' && path.charAt(i + 1) != '/') {
-                            lastSlashIdx = i;
-                            break;
-                        }
-                    }
-                    if (lastSlashIdx > 0) {
-                        path = path.substring(lastSlashIdx);
-                    }
-                } else {
-                    path = uri.getPath();
-                }
-
-                ArchiveLocation loc = cachedArchives.get(path);
-                if (loc == null) {
-                    Archive ar = null;
-                    for (Map.Entry<Archive, File> e : additionalClassPath.entrySet()) {
-                        if (e.getValue().getAbsolutePath().equals(path)) {
-                            ar = e.getKey();
-                            break;
-                        }
-                    }
+                String name = environment.getElementUtils().getBinaryName(t).toString();
 
-                    if (ar != null) {
-                        loc = new ArchiveLocation(ar);
-                        cachedArchives.put(path, loc);
-                    }
+                ArchiveLocation loc = null;
+                Archive ar = findSupplementaryArchive(name, searchHard, supplementaryArchives);
+                if (ar != null) {
+                    loc = cachedArchives.computeIfAbsent(ar, ArchiveLocation::new);
                 }
 
                 if (loc != null) {
                     scanner.scanClass(loc, t, false);
+                } else {
+                    notInSupplementaryArchives.add(t);
                 }
             }
         }
@@ -230,10 +197,31 @@ final class ClasspathScanner {
         scanner.initEnvironment();
     }
 
+    /**
+     * Searches for the class with the given binary name on the classpath and returns the supplementary archive that
+     * contains it.
+     *
+     * @return the supplementary archive or null if the class is missing or found elsewhere
+     */
+    private Archive findSupplementaryArchive(String binaryName, Function<String, JavaFileObject> searchHard,
+                                                    Set<Archive> supplementaryArchives) {
+        JavaFileObject jfo = searchHard.apply(binaryName);
+        if (jfo == null) {
+            //this type is really missing
+            return null;
+        }
+
+        Archive ret = fileManager.getArchive(jfo);
+        return supplementaryArchives.contains(ret) ? ret : null;
+    }
+
+
     private final class Scanner {
         final Set<TypeElement> processed = new HashSet<>();
         final Map<TypeElement, Boolean> requiredTypes = new IdentityHashMap<>();
         final Map<TypeElement, TypeRecord> types = new IdentityHashMap<>();
+        //the type records indexed by their ids
+        final List<TypeRecord> typeRecords = new ArrayList<>();
         final TypeVisitor<TypeElement, Void> getTypeElement = new SimpleTypeVisitor8<TypeElement, Void>() {
             @Override
             protected TypeElement defaultAction(TypeMirror e, Void ignored) {
@@ -287,23 +275,53 @@ final class ClasspathScanner {
             }
         };
 
-        void scan(ArchiveLocation location, File path, boolean primaryApi) throws IOException {
-            fileManager.setLocation(location, Collections.singleton(path));
+        void scan(ArchiveLocation location, boolean primaryApi) throws IOException {
+            fileManager.setArchives(location, Collections.singleton(location.getArchive()));
 
             Iterable<? extends JavaFileObject> jfos = fileManager.list(location, "",
                     EnumSet.of(JavaFileObject.Kind.CLASS), true);
 
             for (JavaFileObject jfo : jfos) {
-                TypeElement type = Util.findTypeByBinaryName(environment.getElementUtils(),
-                        fileManager.inferBinaryName(location, jfo));
+                TypeElement type = findType(jfo, fileManager.inferBinaryName(location, jfo));
 
-                //type can be null if it represents an anonymous or member class...
+                //type can be null if it represents an anonymous or local class...
                 if (type != null) {
                     scanClass(location, type, primaryApi);
                 }
             }
         }
 
+        /**
+         * Javac needs the canonical name to find a type. For the nested classes, it is read from the class file
+         * instead of guessing it from the binary name, which would involve loading all the candidate classes.
+         */
+        TypeElement findType(JavaFileObject classFile, String binaryName) {
+            Elements elements = environment.getElementUtils();
+
+            if (binaryName.indexOf('$') == -1) {
+                return elements.getTypeElement(binaryName);
+            }
+
+            String canonicalName;
+            try (InputStream in = classFile.openInputStream()) {
+                canonicalName = ClassFileReader.readCanonicalName(in);
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Failed to read the canonical name of class " + binaryName + ". Will try to guess it.", e);
+                return Util.findTypeByBinaryName(elements, binaryName);
+            }
+
+            if (canonicalName == null) {
+                return null;
+            }
+
+            try {
+                return elements.getTypeElement(canonicalName);
+            } catch (Exception e) {
+                //Javac can have real trouble trying to initialize member classes...
+                return null;
+            }
+        }
+
         void scanClass(ArchiveLocation loc, TypeElement type, boolean primaryApi) {
             try {
                 if (processed.contains(type)) {
@@ -600,6 +618,8 @@ final class ClasspathScanner {
             TypeRecord rec = types.get(type);
             if (rec == null) {
                 rec = new TypeRecord();
+                rec.id = typeRecords.size();
+                typeRecords.add(rec);
                 rec.javacElement = type;
                 int depth = 0;
                 Element e = type.getEnclosingElement();
@@ -755,44 +775,66 @@ final class ClasspathScanner {
             return types;
         }
 
+        /**
+         * The types used by the types in the API in a way that moves them to the API are in the API, too. Each type
+         * is put on the work list at most once, when it is first found to be in the API, so this is linear in the
+         * number of the uses.
+         */
         private void determineApiStatus() {
-            Set<TypeRecord> undetermined = new HashSet<>(this.types.values());
-            while (!undetermined.isEmpty()) {
-                undetermined = undetermined.stream()
-                        .filter(tr -> !tr.explicitlyExcluded)
-                        .filter(tr -> tr.inApi)
-                        .flatMap(tr -> tr.usedTypes.entrySet().stream()
-                                .map(e -> new AbstractMap.SimpleImmutableEntry<>(tr, e)))
-                        .filter(e -> movesToApi(e.getValue().getKey()))
-                        .flatMap(e -> e.getValue().getValue().stream())
-                        .filter(usedTr -> !usedTr.inApi)
-                        .filter(usedTr -> !usedTr.explicitlyExcluded)
-                        .map(usedTr -> {
+            int[] worklist = new int[typeRecords.size()];
+            int head = 0;
+            int tail = 0;
+
+            for (TypeRecord tr : typeRecords) {
+                if (tr.inApi && !tr.explicitlyExcluded) {
+                    worklist[tail++] = tr.id;
+                }
+            }
+
+            while (head < tail) {
+                TypeRecord tr = typeRecords.get(worklist[head++]);
+                for (Map.Entry<UseSite.Type, Set<TypeRecord>> e : tr.usedTypes.entrySet()) {
+                    if (!movesToApi(e.getKey())) {
+                        continue;
+                    }
+
+                    for (TypeRecord usedTr : e.getValue()) {
+                        if (!usedTr.inApi && !usedTr.explicitlyExcluded) {
                             usedTr.inApi = true;
                             usedTr.inApiThroughUse = true;
-                            return usedTr;
-                        })
-                        .collect(toSet());
+                            worklist[tail++] = usedTr.id;
+                        }
+                    }
+                }
             }
         }
 
         private void moveInnerClassesOfPrimariesToApi() {
-            Set<TypeRecord> primaries = this.types.values().stream()
-                    .filter(tr -> tr.primaryApi)
-                    .filter(tr -> tr.inApi)
-                    .filter(tr -> tr.nestingDepth == 0)
-                    .collect(toSet());
-
-            while (!primaries.isEmpty()) {
-                primaries = primaries.stream()
-                        .flatMap(tr -> tr.usedTypes.getOrDefault(UseSite.Type.CONTAINS, Collections.emptySet()).stream())
-                        .filter(containedTr -> containedTr.modelElement != null)
-                        .filter(containedTr -> !shouldBeIgnored(containedTr.modelElement.getDeclaringElement()))
-                        .map(containedTr -> {
-                            containedTr.inApi = true;
-                            return containedTr;
-                        })
-                        .collect(toSet());
+            int[] worklist = new int[typeRecords.size()];
+            BitSet visited = new BitSet(typeRecords.size());
+            int head = 0;
+            int tail = 0;
+
+            for (TypeRecord tr : typeRecords) {
+                if (tr.primaryApi && tr.inApi && tr.nestingDepth == 0) {
+                    worklist[tail++] = tr.id;
+                    visited.set(tr.id);
+                }
+            }
+
+            while (head < tail) {
+                TypeRecord tr = typeRecords.get(worklist[head++]);
+                for (TypeRecord containedTr : tr.usedTypes.getOrDefault(UseSite.Type.CONTAINS,
+                        Collections.emptySet())) {
+                    if (containedTr.modelElement == null || visited.get(containedTr.id)
+                            || shouldBeIgnored(containedTr.modelElement.getDeclaringElement())) {
+                        continue;
+                    }
+
+                    containedTr.inApi = true;
+                    worklist[tail++] = containedTr.id;
+                    visited.set(containedTr.id);
+                }
             }
         }
 
@@ -827,7 +869,7 @@ final class ClasspathScanner {
                 };
 
                 Function<JavaElementBase<?, ?>, JavaElementBase<?, ?>> initChildren = e -> {
-                    initNonClassElementChildrenAndMoveToApi(tr, e, false);
+                    initNonClassElementChildrenAndMoveToApi(tr, e, null, false);
                     return e;
                 };
 
@@ -868,6 +910,9 @@ final class ClasspathScanner {
                             }
                         }
 
+                        //the inherited member elements are not shared among the subtypes - each needs its own parent
+                        //and its asMemberOf type is part of its sort key, so the number of the member elements still
+                        //grows with the depth of the type hierarchy. Only their children are created lazily.
                         TypeMirror elementType = types.asMemberOf((DeclaredType) target.javacElement.asType(), e);
 
                         JavaElementBase<?, ?> element = JavaElementFactory
@@ -875,7 +920,7 @@ final class ClasspathScanner {
 
                         element.setInherited(true);
 
-                        initNonClassElementChildrenAndMoveToApi(target, element, true);
+                        initNonClassElementChildrenAndMoveToApi(target, element, elementType, true);
 
                         return element;
                     })
@@ -903,12 +948,30 @@ final class ClasspathScanner {
         }
 
         private void initNonClassElementChildrenAndMoveToApi(TypeRecord targetType, JavaElementBase<?, ?> parent,
-                                                             boolean inherited) {
+                                                             @Nullable TypeMirror parentType, boolean inherited) {
+            moveToApi(targetType, parent.getDeclaringElement(), parentType);
+
+            if (inherited) {
+                //the inherited members are repeated in every subtype, so at least their children (the method
+                //parameters and annotations) are only created if needed. The element asks the environment for them
+                //(see ProbingEnvironment#createInheritedChildren()).
+                parent.setChildrenPending(true);
+            } else {
+                parent.getChildren().addAll(createNonClassElementChildren(environment,
+                        targetType.modelElement.getModelRepresentation(), parent, false));
+            }
+        }
+
+        /**
+         * @param memberType the type of the member as a member of the target type, if already known
+         */
+        private void moveToApi(TypeRecord targetType, Element member, @Nullable TypeMirror memberType) {
             Types types = environment.getTypeUtils();
 
-            if (targetType.inApi && !shouldBeIgnored(parent.getDeclaringElement())) {
-                TypeMirror representation = types.asMemberOf(targetType.modelElement.getModelRepresentation(),
-                        parent.getDeclaringElement());
+            if (targetType.inApi && !shouldBeIgnored(member)) {
+                TypeMirror representation = memberType != null
+                        ? memberType
+                        : types.asMemberOf(targetType.modelElement.getModelRepresentation(), member);
 
                 representation.accept(new SimpleTypeVisitor8<Void, Void>() {
                     @Override protected Void defaultAction(TypeMirror e, Void aVoid) {
@@ -937,48 +1000,60 @@ final class ClasspathScanner {
                 }, null);
             }
 
-            List<? extends Element> children =
-                    parent.getDeclaringElement().accept(new SimpleElementVisitor8<List<? extends Element>, Void>() {
-                        @Override protected List<? extends Element> defaultAction(Element e, Void aVoid) {
-                            return Collections.emptyList();
-                        }
+            for (Element child : getNonClassChildren(member)) {
+                moveToApi(targetType, child, null);
+            }
+        }
+    }
 
-                        @Override public List<? extends Element> visitType(TypeElement e, Void aVoid) {
-                            return e.getEnclosedElements();
-                        }
+    static List<JavaElement> createNonClassElementChildren(ProbingEnvironment environment,
+                                                                   DeclaredType targetType,
+                                                                   JavaElementBase<?, ?> parent, boolean inherited) {
+        Types types = environment.getTypeUtils();
 
-                        @Override public List<? extends Element> visitExecutable(ExecutableElement e, Void aVoid) {
-                            return e.getParameters();
-                        }
-                    }, null);
+        List<JavaElement> ret = new ArrayList<>();
 
-            for (Element child : children) {
-                if (child.getKind().isClass() || child.getKind().isInterface()) {
-                    continue;
-                }
+        for (Element child : getNonClassChildren(parent.getDeclaringElement())) {
+            TypeMirror representation;
+            if (child.getKind() == ElementKind.METHOD || child.getKind() == ElementKind.CONSTRUCTOR) {
+                representation = types.asMemberOf(targetType, child);
+            } else {
+                representation = child.asType();
+            }
 
-                TypeMirror representation;
-                if (child.getKind() == ElementKind.METHOD || child.getKind() == ElementKind.CONSTRUCTOR) {
-                    representation = types.asMemberOf(targetType.modelElement.getModelRepresentation(),
-                            child);
-                } else {
-                    representation = child.asType();
-                }
+            JavaElementBase<?, ?> childEl = JavaElementFactory.elementFor(child, representation, environment,
+                    parent.getArchive());
+
+            childEl.setInherited(inherited);
+
+            childEl.getChildren().addAll(createNonClassElementChildren(environment, targetType, childEl, inherited));
+
+            ret.add(childEl);
+        }
 
-                JavaElementBase<?, ?> childEl = JavaElementFactory.elementFor(child, representation, environment,
-                        parent.getArchive());
+        for (AnnotationMirror m : parent.getDeclaringElement().getAnnotationMirrors()) {
+            ret.add(new AnnotationElement(environment, parent.getArchive(), m));
+        }
 
-                childEl.setInherited(inherited);
+        return ret;
+    }
 
-                parent.getChildren().add(childEl);
+    private static List<? extends Element> getNonClassChildren(Element element) {
+        List<? extends Element> children = element.accept(new SimpleElementVisitor8<List<? extends Element>, Void>() {
+            @Override protected List<? extends Element> defaultAction(Element e, Void aVoid) {
+                return Collections.emptyList();
+            }
 
-                initNonClassElementChildrenAndMoveToApi(targetType, childEl, inherited);
+            @Override public List<? extends Element> visitType(TypeElement e, Void aVoid) {
+                return e.getEnclosedElements();
             }
 
-            for (AnnotationMirror m : parent.getDeclaringElement().getAnnotationMirrors()) {
-                parent.getChildren().add(new AnnotationElement(environment, parent.getArchive(), m));
+            @Override public List<? extends Element> visitExecutable(ExecutableElement e, Void aVoid) {
+                return e.getParameters();
             }
-        }
+        }, null);
+
+        return children.stream().filter(c -> !c.getKind().isClass() && !c.getKind().isInterface()).collect(toList());
     }
 
     private static String getOverrideMapKey(ExecutableElement method) {
@@ -1022,6 +1097,7 @@ final class ClasspathScanner {
     }
 
     private static final class TypeRecord {
+        int id;
         Set<ClassPathUseSite> useSites = new HashSet<>(2);
         TypeElement javacElement;
         org.revapi.java.model.TypeElement modelElement;
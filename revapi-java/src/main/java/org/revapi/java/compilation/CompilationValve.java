@@ -16,18 +16,12 @@
 
 package org.revapi.java.compilation;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
-import javax.tools.JavaFileManager;
-
+import org.revapi.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,15 +33,13 @@ public final class CompilationValve {
     private static final Logger LOG = LoggerFactory.getLogger(CompilationValve.class);
 
     private final Future<Boolean> compilationResult;
-    private final File dirToCleanup;
     private final ProbingEnvironment environment;
-    private final JavaFileManager fileManager;
+    private final ArchiveFileManager fileManager;
 
-    /* package private */ CompilationValve(Future<Boolean> results, File dirToCleanup, ProbingEnvironment env,
-            JavaFileManager fileManager) {
+    /* package private */ CompilationValve(Future<Boolean> results, ProbingEnvironment env,
+            ArchiveFileManager fileManager) {
 
         this.compilationResult = results;
-        this.dirToCleanup = dirToCleanup;
         this.environment = env;
         this.fileManager = fileManager;
     }
@@ -60,6 +52,18 @@ public final class CompilationValve {
         return compilationResult;
     }
 
+    /**
+     * Returns the digests of the class files in the archive. The archives identical in the old and new API share
+     * them so they are computed only once.
+     *
+     * @param archive one of the (primary or supplementary) archives of the compiled API
+     * @return the SHA-256 digests of the class files in the archive keyed by the binary names of the classes
+     * @throws IOException on failure to read the archive
+     */
+    public Map<String, byte[]> getClassDigests(Archive archive) throws IOException {
+        return fileManager.getClassDigests(archive);
+    }
+
     public void removeCompiledResults() {
 
         if (LOG.isTraceEnabled()) {
@@ -84,36 +88,5 @@ public final class CompilationValve {
         } catch (IOException e) {
             throw new IllegalStateException("Failed to close the file manager used by the compiler.", e);
         }
-
-        try {
-            Files.walkFileTree(dirToCleanup.toPath(), new FileVisitor<Path>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    Files.delete(file);
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                    if (dirToCleanup.toPath().equals(file)) {
-                        return FileVisitResult.CONTINUE;
-                    }
-                    throw new IOException("Failed to delete file '" + file + "'.", exc);
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    Files.delete(dir);
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to remove compiled results", e);
-        }
     }
 }
@@ -16,44 +16,47 @@
 
 package org.revapi.java.compilation;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
+import javax.annotation.Nullable;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 
 import org.revapi.Archive;
 import org.revapi.java.AnalysisConfiguration;
 import org.revapi.java.Timing;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * @author Lukas Krejci
  * @since 0.1
  */
 public final class Compiler {
-    private static final Logger LOG = LoggerFactory.getLogger(Compiler.class);
 
     private final JavaCompiler compiler;
     private final Writer output;
     private final Iterable<? extends Archive> classPath;
     private final Iterable<? extends Archive> additionalClassPath;
     private final ExecutorService executor;
+    private final ArchiveIndexCache indexCache;
 
     public Compiler(ExecutorService executor, Writer reportingOutput, Iterable<? extends Archive> classPath,
         Iterable<? extends Archive> additionalClassPath) {
+        this(executor, reportingOutput, classPath, additionalClassPath, null);
+    }
+
+    /**
+     * @param indexCache the cache of the indices of the archives, possibly shared with other compilers, or null if
+     *                   the archives should be indexed just for this compiler
+     */
+    public Compiler(ExecutorService executor, Writer reportingOutput, Iterable<? extends Archive> classPath,
+        Iterable<? extends Archive> additionalClassPath, @Nullable ArchiveIndexCache indexCache) {
 
         compiler = ToolProvider.getSystemJavaCompiler();
         if (compiler == null) {
@@ -64,6 +67,7 @@ public final class Compiler {
         this.output = reportingOutput;
         this.classPath = classPath;
         this.additionalClassPath = additionalClassPath;
+        this.indexCache = indexCache == null ? new ArchiveIndexCache() : indexCache;
     }
 
     public CompilationValve compile(final ProbingEnvironment environment,
@@ -72,41 +76,34 @@ public final class Compiler {
                                     final InclusionFilter inclusionFilter)
             throws Exception {
 
-        File targetPath = Files.createTempDirectory("revapi-java").toAbsolutePath().toFile();
-
-        File sourceDir = new File(targetPath, "sources");
-        sourceDir.mkdir();
-
-        File lib = new File(targetPath, "lib");
-        lib.mkdir();
+        //the locale and charset are actually not important, because the only sources we're providing
+        //are not file-based. The rest of the stuff the compiler will be touching is already compiled
+        //and therefore not affected by the charset.
+        ArchiveFileManager fileManager = new ArchiveFileManager(compiler
+                .getStandardFileManager(null, Locale.getDefault(), Charset.forName("UTF-8")), indexCache);
 
         // make sure the classpath is in the same order as passed in
-        int classPathSize = size(classPath);
-        int nofArchives = classPathSize + size(additionalClassPath);
-
-        int prefixLength = (int) Math.log10(nofArchives) + 1;
+        List<Archive> classPathArchives;
+        List<Archive> additionalClassPathArchives;
+        try {
+            classPathArchives = indexArchives(fileManager, classPath);
+            additionalClassPathArchives = indexArchives(fileManager, additionalClassPath);
+        } catch (RuntimeException e) {
+            fileManager.close();
+            throw e;
+        }
 
-        IdentityHashMap<Archive, File> classPathFiles = copyArchives(classPath, lib, 0, prefixLength);
-        IdentityHashMap<Archive, File> additionClassPathFiles = copyArchives(additionalClassPath, lib, classPathSize, prefixLength);
-
-        List<String> options = Arrays.asList(
-            "-d", sourceDir.toString(),
-            "-cp", composeClassPath(lib)
-        );
+        List<Archive> allArchives = new ArrayList<>(classPathArchives);
+        allArchives.addAll(additionalClassPathArchives);
+        fileManager.setArchives(StandardLocation.CLASS_PATH, allArchives);
 
         List<JavaFileObject> sources = Arrays.<JavaFileObject>asList(
             new MarkerAnnotationObject(),
             new ArchiveProbeObject()
         );
 
-        //the locale and charset are actually not important, because the only sources we're providing
-        //are not file-based. The rest of the stuff the compiler will be touching is already compiled
-        //and therefore not affected by the charset.
-        StandardJavaFileManager fileManager = compiler
-                .getStandardFileManager(null, Locale.getDefault(), Charset.forName("UTF-8"));
-
         final JavaCompiler.CompilationTask task = compiler
-            .getTask(output, fileManager, null, options, Collections.singletonList(ArchiveProbeObject.CLASS_NAME),
+            .getTask(output, fileManager, null, null, Collections.singletonList(ArchiveProbeObject.CLASS_NAME),
                 sources);
 
         ProbingAnnotationProcessor processor = new ProbingAnnotationProcessor(environment);
@@ -119,7 +116,7 @@ public final class Compiler {
             }
 
             try {
-                new ClasspathScanner(fileManager, environment, classPathFiles, additionClassPathFiles,
+                new ClasspathScanner(fileManager, environment, classPathArchives, additionalClassPathArchives,
                         missingClassReporting, ignoreMissingAnnotations, inclusionFilter).initTree();
             } catch (IOException e) {
                 throw new IllegalStateException("Failed to scan the classpath.", e);
@@ -131,89 +128,31 @@ public final class Compiler {
         });
 
 
-        return new CompilationValve(future, targetPath, environment, fileManager);
+        return new CompilationValve(future, environment, fileManager);
     }
 
-    private String composeClassPath(File classPathDir) {
-        StringBuilder bld = new StringBuilder();
-
-        File[] jars = classPathDir.listFiles();
-
-        if (jars == null || jars.length == 0) {
-            return "";
-        }
-
-        List<File> sortedJars = new ArrayList<>(Arrays.asList(jars));
-        Collections.sort(sortedJars, new Comparator<File>() {
-            @Override
-            public int compare(File o1, File o2) {
-                return o1.getName().compareTo(o2.getName());
-            }
-        });
-
-        Iterator<File> it = sortedJars.iterator();
-
-        bld.append(it.next().getAbsolutePath());
-        while (it.hasNext()) {
-            bld.append(File.pathSeparator).append(it.next().getAbsolutePath());
-        }
-
-        return bld.toString();
-    }
-
-    private IdentityHashMap<Archive, File>
-    copyArchives(Iterable<? extends Archive> archives, File parentDir, int startIdx, int prefixLength) {
-        IdentityHashMap<Archive, File> ret = new IdentityHashMap<>();
+    /**
+     * Reads the indices of the classes in the archives so that the file manager can serve them to the compiler.
+     *
+     * @return the archives in the classpath order
+     */
+    private List<Archive>
+    indexArchives(ArchiveFileManager fileManager, Iterable<? extends Archive> archives) {
+        List<Archive> ret = new ArrayList<>();
         if (archives == null) {
             return ret;
         }
 
         for (Archive a : archives) {
-            String name = formatName(startIdx++, prefixLength, a.getName());
-            File f = new File(parentDir, name);
+            ret.add(a);
 
-            ret.put(a, f);
-
-            if (f.exists()) {
-                LOG.warn(
-                    "File " + f.getAbsolutePath() + " with the data of archive '" + a.getName() + "' already exists." +
-                            " Assume it already contains the bits we need.");
-                continue;
-            }
-
-            Path target = new File(parentDir, name).toPath();
-
-            try (InputStream data = a.openStream()) {
-                Files.copy(data, target);
+            try {
+                fileManager.addArchive(a);
             } catch (IOException e) {
-                throw new IllegalStateException(
-                    "Failed to copy class path element: " + a.getName() + " to " + f.getAbsolutePath(), e);
+                throw new IllegalStateException("Failed to read class path element: " + a.getName(), e);
             }
         }
 
         return ret;
     }
-
-    private int size(Iterable<?> collection) {
-        if (collection == null) {
-            return 0;
-        }
-
-        int ret = 0;
-        Iterator<?> it = collection.iterator();
-        while (it.hasNext()) {
-            ret++;
-            it.next();
-        }
-
-        return ret;
-    }
-
-    private String formatName(int idx, int prefixLength, String rootName) {
-        try {
-            return String.format("%0" + prefixLength + "d-%s", idx, UUID.nameUUIDFromBytes(rootName.getBytes("UTF-8")));
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalStateException("UTF-8 not supported.");
-        }
-    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java.compilation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.revapi.Metrics;
+
+/**
+ * A bounded cache of the values computed for types or elements, like their string representations. The entries are
+ * keyed by the identity of the types or elements, which javac keeps stable within a single compilation, so one
+ * instance must not be shared between different {@link ProbingEnvironment}s.
+ *
+ * <p>Once the cache reaches its maximum size, the least recently used entry is evicted for each new one, so that the
+ * values of the types in active use stay cached even on large APIs. The values are computed outside of the lock of
+ * the cache, so the computation can use the cache itself.
+ *
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+final class IdentityCache<T, V> {
+    private final Function<T, V> compute;
+    private final Map<Key, V> entries;
+    private final Metrics.Counter hits;
+    private final Metrics.Counter misses;
+
+    /**
+     * @param compute the function to compute the values with
+     * @param maxSize the maximum number of the cached values
+     * @param metrics the metrics to record the hits and misses of the cache in
+     * @param metricsName the prefix of the names of the hit and miss counters
+     */
+    IdentityCache(Function<T, V> compute, int maxSize, Metrics metrics, String metricsName) {
+        this.compute = compute;
+        this.entries = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.hits = metrics.counter(metricsName + ".hits");
+        this.misses = metrics.counter(metricsName + ".misses");
+    }
+
+    V get(T object) {
+        Key key = new Key(object);
+        V ret;
+        synchronized (entries) {
+            ret = entries.get(key);
+        }
+
+        if (ret != null) {
+            hits.increment();
+            return ret;
+        }
+
+        misses.increment();
+        ret = compute.apply(object);
+
+        synchronized (entries) {
+            entries.put(key, ret);
+        }
+
+        return ret;
+    }
+
+    private static final class Key {
+        final Object object;
+
+        Key(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).object == object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(object);
+        }
+    }
+}
@@ -20,19 +20,28 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.AnnotatedConstruct;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
 import org.revapi.API;
+import org.revapi.Metrics;
+import org.revapi.java.model.JavaElementBase;
 import org.revapi.java.model.JavaElementForest;
+import org.revapi.java.spi.JavaElement;
+import org.revapi.java.spi.JavaModelElement;
+import org.revapi.java.spi.JavaTypeElement;
 import org.revapi.java.spi.TypeEnvironment;
 import org.revapi.java.spi.Util;
 
@@ -41,6 +50,9 @@ import org.revapi.java.spi.Util;
  * @since 0.1
  */
 public final class ProbingEnvironment implements TypeEnvironment {
+    private static final int MAX_CACHED_STRINGS = 65536;
+    private static final int MAX_CACHED_HIERARCHIES = 16384;
+
     private final API api;
     private volatile ProcessingEnvironment processingEnvironment;
     private final CountDownLatch compilationProgressLatch = new CountDownLatch(1);
@@ -51,10 +63,37 @@ public final class ProbingEnvironment implements TypeEnvironment {
     private Map<TypeElement, org.revapi.java.model.TypeElement> typeMap;
     private Map<TypeElement, Set<TypeElement>> derivedTypes = new HashMap<>();
     private Map<TypeElement, Set<TypeElement>> superTypes = new HashMap<>();
+    private volatile IdentityCache<TypeMirror, String> uniqueStrings;
+    private volatile IdentityCache<AnnotatedConstruct, String> humanReadableStrings;
+    private volatile IdentityCache<TypeMirror, List<TypeMirror>> superClasses;
+    private volatile IdentityCache<TypeMirror, List<TypeMirror>> superInterfaces;
+    private volatile IdentityCache<TypeMirror, Set<String>> superTypeStrings;
+    private volatile IdentityCache<TypeMirror, String> candidateSuperTypeStrings;
+    private volatile Thread analysisThread;
 
     public ProbingEnvironment(API api) {
         this.api = api;
         this.tree = new JavaElementForest(api);
+        setMetrics(Metrics.disabled());
+    }
+
+    /**
+     * @param metrics the metrics to record the hits and misses of the caches of the type strings and hierarchies in
+     */
+    public void setMetrics(Metrics metrics) {
+        uniqueStrings = new IdentityCache<>(Util::toUniqueString, MAX_CACHED_STRINGS, metrics,
+                "java.uniqueStrings");
+        humanReadableStrings = new IdentityCache<>(Util::toHumanReadableString, MAX_CACHED_STRINGS, metrics,
+                "java.humanReadableStrings");
+        superClasses = new IdentityCache<>(t -> Collections.unmodifiableList(
+                Util.getAllSuperClasses(getTypeUtils(), t)), MAX_CACHED_HIERARCHIES, metrics, "java.superClasses");
+        superInterfaces = new IdentityCache<>(t -> Collections.unmodifiableList(
+                Util.getAllSuperInterfaces(getTypeUtils(), t)), MAX_CACHED_HIERARCHIES, metrics,
+                "java.superInterfaces");
+        superTypeStrings = new IdentityCache<>(this::computeSuperTypeStrings, MAX_CACHED_HIERARCHIES, metrics,
+                "java.superTypes");
+        candidateSuperTypeStrings = new IdentityCache<>(Util::toUniqueString, MAX_CACHED_STRINGS, metrics,
+                "java.candidateSuperTypes");
     }
 
     public API getApi() {
@@ -82,11 +121,61 @@ public final class ProbingEnvironment implements TypeEnvironment {
     }
 
     public boolean isExplicitlyIncluded(Element element) {
-        return explicitInclusions.contains(Util.toHumanReadableString(element));
+        return explicitInclusions.contains(toHumanReadableString(element));
     }
 
     public boolean isExplicitlyExcluded(Element element) {
-        return explicitExclusions.contains(Util.toHumanReadableString(element));
+        return explicitExclusions.contains(toHumanReadableString(element));
+    }
+
+    @Nonnull
+    @Override
+    public String toUniqueString(@Nonnull TypeMirror type) {
+        return uniqueStrings.get(type);
+    }
+
+    @Nonnull
+    @Override
+    public String toHumanReadableString(@Nonnull AnnotatedConstruct construct) {
+        return humanReadableStrings.get(construct);
+    }
+
+    @Nonnull
+    @Override
+    public List<TypeMirror> getAllSuperClasses(@Nonnull TypeMirror type) {
+        return superClasses.get(type);
+    }
+
+    @Nonnull
+    @Override
+    public List<TypeMirror> getAllSuperInterfaces(@Nonnull TypeMirror type) {
+        return superInterfaces.get(type);
+    }
+
+    @Override
+    public boolean isSubtype(@Nonnull TypeMirror type, @Nonnull List<? extends TypeMirror> superTypes) {
+        Set<String> typeAndSuperTypes = superTypeStrings.get(type);
+        for (TypeMirror t : superTypes) {
+            //the supposed super types may come from the other environment, so they are not mixed with the unique
+            //strings of our own types
+            if (typeAndSuperTypes.contains(candidateSuperTypeStrings.get(t))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Set<String> computeSuperTypeStrings(TypeMirror type) {
+        List<TypeMirror> superTypes = Util.getAllSuperTypes(getTypeUtils(), type);
+
+        Set<String> ret = new HashSet<>(superTypes.size() + 1);
+        ret.add(toUniqueString(type));
+        for (TypeMirror t : superTypes) {
+            ret.add(toUniqueString(t));
+        }
+
+        return ret;
     }
 
     public boolean isScanningComplete() {
@@ -139,6 +228,44 @@ public final class ProbingEnvironment implements TypeEnvironment {
         }
     }
 
+    /**
+     * Confines the use of javac by the model elements to the given thread. Javac is not thread-safe and the analysis
+     * uses it, too, so once the analysis starts, the children of the inherited elements can only be created on its
+     * thread.
+     *
+     * @param thread the thread of the analysis
+     */
+    public void setAnalysisThread(@Nullable Thread thread) {
+        this.analysisThread = thread;
+    }
+
+    /**
+     * Only meant to be called by an inherited element when its children are first needed.
+     *
+     * @param element the inherited element
+     * @return the children of the element
+     * @throws IllegalStateException if called during the analysis from other than the analysis thread
+     */
+    public List<JavaElement> createInheritedChildren(JavaElementBase<?, ?> element) {
+        Thread analysisThread = this.analysisThread;
+        if (analysisThread != null && analysisThread != Thread.currentThread()) {
+            throw new IllegalStateException("The children of " + element + " can only be created on the thread of" +
+                    " the analysis (" + analysisThread.getName() + ").");
+        }
+
+        JavaModelElement type = element.getParent();
+        while (type != null && !(type instanceof JavaTypeElement)) {
+            type = type.getParent();
+        }
+
+        if (type == null) {
+            throw new IllegalStateException("Inherited element " + element + " is not a member of any type.");
+        }
+
+        return ClasspathScanner.createNonClassElementChildren(this,
+                ((JavaTypeElement) type).getModelRepresentation(), element, true);
+    }
+
     public void addExplicitExclusion(String canonicalName) {
         explicitExclusions.add(canonicalName);
     }
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -47,7 +48,8 @@ import org.revapi.java.spi.JavaModelElement;
 abstract class AbstractIncludeExcludeFilter implements ElementFilter {
     private final String configurationRootPath;
     private final String schemaPath;
-    private final IdentityHashMap<Object, InclusionState> elementResults = new IdentityHashMap<>();
+    //synchronized, because the filters can be called concurrently during the parallel analysis
+    private final Map<Object, InclusionState> elementResults = Collections.synchronizedMap(new IdentityHashMap<>());
     protected Predicate<String> includeTest;
     protected Predicate<String> excludeTest;
     protected boolean doNothing;
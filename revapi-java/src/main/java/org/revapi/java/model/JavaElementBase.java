@@ -16,6 +16,7 @@
 
 package org.revapi.java.model;
 
+import java.util.Iterator;
 import java.util.SortedSet;
 
 import javax.annotation.Nonnull;
@@ -31,6 +32,7 @@ import org.revapi.java.spi.JavaModelElement;
 import org.revapi.java.spi.JavaTypeElement;
 import org.revapi.java.spi.TypeEnvironment;
 import org.revapi.java.spi.Util;
+import org.revapi.query.Filter;
 import org.revapi.simple.SimpleElement;
 
 /**
@@ -47,6 +49,8 @@ public abstract class JavaElementBase<E extends Element, T extends TypeMirror> e
     private String comparableSignature;
     private boolean inherited = false;
     private String stringRepre;
+    private volatile boolean childrenPending;
+    private boolean freezePending;
 
     JavaElementBase(ProbingEnvironment env, Archive archive, E element, T representation) {
         this.environment = env;
@@ -108,9 +112,57 @@ public abstract class JavaElementBase<E extends Element, T extends TypeMirror> e
     @Override
     @SuppressWarnings("unchecked")
     public SortedSet<JavaElement> getChildren() {
+        initChildren();
         return (SortedSet<JavaElement>) super.getChildren();
     }
 
+    @Override
+    public void freeze() {
+        synchronized (this) {
+            if (childrenPending) {
+                //freeze once the children are actually created
+                freezePending = true;
+                return;
+            }
+        }
+
+        super.freeze();
+    }
+
+    @Nonnull
+    @Override
+    public <U extends org.revapi.Element> Iterator<U> iterateOverChildren(@Nonnull Class<U> resultType,
+                                                                          boolean recurse,
+                                                                          @Nullable Filter<? super U> filter) {
+        initChildren();
+        return super.iterateOverChildren(resultType, recurse, filter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initChildren() {
+        if (!childrenPending) {
+            return;
+        }
+
+        //the environment creates the children using javac, so it only lets this happen on the thread of the analysis
+        //once it is running. The java difference analyzer doesn't let the reporters run asynchronously, so this is
+        //the only thread that can see this element then.
+        synchronized (this) {
+            if (!childrenPending) {
+                return;
+            }
+
+            ((SortedSet<org.revapi.Element>) super.getChildren()).addAll(environment.createInheritedChildren(this));
+
+            childrenPending = false;
+
+            if (freezePending) {
+                freezePending = false;
+                super.freeze();
+            }
+        }
+    }
+
     @Override public boolean isInherited() {
         return inherited;
     }
@@ -119,6 +171,17 @@ public abstract class JavaElementBase<E extends Element, T extends TypeMirror> e
         this.inherited = inherited;
     }
 
+    /**
+     * Only meant to be called by the classpath scanner. The children of an element with pending children are created
+     * by the {@link ProbingEnvironment#createInheritedChildren(JavaElementBase) environment} once they are first
+     * needed.
+     *
+     * @param childrenPending whether the children of this (inherited) element are yet to be created
+     */
+    public void setChildrenPending(boolean childrenPending) {
+        this.childrenPending = childrenPending;
+    }
+
     @Nonnull
     @Override
     public final String getFullHumanReadableString() {
@@ -24,7 +24,6 @@ import org.revapi.Archive;
 import org.revapi.java.compilation.ProbingEnvironment;
 import org.revapi.java.spi.JavaMethodElement;
 import org.revapi.java.spi.JavaTypeElement;
-import org.revapi.java.spi.Util;
 
 /**
  * @author Lukas Krejci
@@ -52,6 +51,6 @@ public final class MethodElement extends JavaElementBase<ExecutableElement, Exec
         //the choice of '#' for a separator between the name and signature is because it precedes both '(' and any
         //legal character in a method name in the ASCII table
         return getDeclaringElement().getSimpleName() + "#" +
-            Util.toUniqueString(getModelRepresentation());
+            environment.toUniqueString(getModelRepresentation());
     }
 }
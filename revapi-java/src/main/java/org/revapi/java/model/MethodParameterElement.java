@@ -26,7 +26,6 @@ import org.revapi.Element;
 import org.revapi.java.compilation.ProbingEnvironment;
 import org.revapi.java.spi.JavaMethodElement;
 import org.revapi.java.spi.JavaMethodParameterElement;
-import org.revapi.java.spi.Util;
 
 /**
  * @author Lukas Krejci
@@ -107,7 +106,8 @@ public final class MethodParameterElement extends JavaElementBase<VariableElemen
 
     @Override
     protected String createComparableSignature() {
-        String myType = Util.toUniqueString(getDeclaringElement().getEnclosingElement().getEnclosingElement().asType());
+        String myType = environment.toUniqueString(
+                getDeclaringElement().getEnclosingElement().getEnclosingElement().asType());
         String myMethod = getDeclaringElement().getEnclosingElement().getSimpleName().toString();
 
         return myType + "::" + myMethod;
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revapi.Report;
+import org.revapi.Reporter;
+import org.revapi.Revapi;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+public class AsynchronousReportingTest extends AbstractJavaElementAnalyzerTest {
+    private static final String[] V1_SOURCES = {"v1/classes/ChangedSuperTypes.java",
+            "v1/classes/ImplementedInterfaces.java", "v1/methods/Added.java", "v1/methods/Overloads.java",
+            "v1/methods/ReturnType.java"};
+    private static final String[] V2_SOURCES = {"v2/classes/ChangedSuperTypes.java",
+            "v2/classes/ImplementedInterfaces.java", "v2/methods/Added.java", "v2/methods/Overloads.java",
+            "v2/methods/ReturnType.java"};
+
+    private boolean async;
+
+    @Override
+    protected Revapi createRevapi(Class<? extends Reporter> reporterType) {
+        Revapi.Builder bld = Revapi.builder().withAnalyzers(JavaApiAnalyzer.class).withReporters(reporterType)
+                .withTransformsFromThreadContextClassLoader().withFiltersFromThreadContextClassLoader();
+
+        if (async) {
+            bld.withAsynchronousReporting(1);
+        }
+
+        return bld.build();
+    }
+
+    @Test
+    public void testJavaElementsReportedOnAnalysisThread() throws Exception {
+        List<String> sync = reportedDifferences();
+
+        async = true;
+        ThreadRecordingReporter.THREADS.clear();
+        List<String> asyncReported = reportedDifferences();
+
+        Assert.assertFalse(sync.isEmpty());
+        Assert.assertEquals(sync, asyncReported);
+        Assert.assertEquals(Collections.singleton(Thread.currentThread().getName()),
+                new HashSet<>(ThreadRecordingReporter.THREADS));
+    }
+
+    private List<String> reportedDifferences() throws Exception {
+        ThreadRecordingReporter reporter = runAnalysis(ThreadRecordingReporter.class, V1_SOURCES, V2_SOURCES);
+
+        return reporter.getReports().stream()
+                .flatMap(r -> r.getDifferences().stream().map(d -> r.getOldElement() + " -> " + r.getNewElement()
+                        + ": " + d.code + " " + d.attachments))
+                .collect(Collectors.toList());
+    }
+
+    public static final class ThreadRecordingReporter extends CollectingReporter {
+        static final Set<String> THREADS = Collections.synchronizedSet(new HashSet<>());
+
+        @Override
+        public void report(@Nonnull Report report) {
+            THREADS.add(Thread.currentThread().getName());
+            super.report(report);
+        }
+    }
+}
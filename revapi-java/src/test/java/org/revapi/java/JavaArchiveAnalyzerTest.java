@@ -18,9 +18,15 @@ package org.revapi.java;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 
@@ -35,8 +41,12 @@ import org.revapi.API;
 import org.revapi.Archive;
 import org.revapi.Element;
 import org.revapi.java.compilation.InclusionFilter;
+import org.revapi.java.model.AnnotationElement;
 import org.revapi.java.model.JavaElementForest;
+import org.revapi.java.model.MethodElement;
+import org.revapi.java.model.MethodParameterElement;
 import org.revapi.java.model.TypeElement;
+import org.revapi.java.spi.JavaElement;
 
 
 /**
@@ -207,6 +217,156 @@ public class JavaArchiveAnalyzerTest extends AbstractJavaElementAnalyzerTest {
         }
     }
 
+    @Test
+    public void testApiStatusPropagation() throws Exception {
+        ArchiveAndCompilationPath compRes = createCompiledJar("a.jar", "misc/ApiStatus.java",
+                "misc/ApiStatusSup.java");
+
+        JavaArchive api = ShrinkWrap.create(JavaArchive.class, "api.jar");
+        JavaArchive sup = ShrinkWrap.create(JavaArchive.class, "sup.jar");
+        try (DirectoryStream<Path> classes = Files.newDirectoryStream(compRes.compilationPath, "*.class")) {
+            for (Path c : classes) {
+                String name = c.getFileName().toString();
+                (name.startsWith("ApiStatusSup") ? sup : api).addAsResource(c.toFile(), name);
+            }
+        }
+
+        InclusionFilter excludeOne = new InclusionFilter() {
+            @Override
+            public boolean accepts(String typeBinaryName, String typeCanonicalName) {
+                return false;
+            }
+
+            @Override
+            public boolean rejects(String typeBinaryName, String typeCanonicalName) {
+                return "ApiStatusSup.Excluded".equals(typeCanonicalName);
+            }
+
+            @Override
+            public boolean defaultCase() {
+                return true;
+            }
+        };
+
+        JavaArchiveAnalyzer analyzer = new JavaArchiveAnalyzer(new API(Arrays.asList(new ShrinkwrapArchive(api)),
+                Arrays.asList(new ShrinkwrapArchive(sup))), Executors.newSingleThreadExecutor(), null,
+                false, excludeOne);
+
+        try {
+            JavaElementForest forest = analyzer.analyze();
+
+            Map<String, String> statuses = new TreeMap<>();
+            for (TypeElement t : forest.search(TypeElement.class, true, null, null)) {
+                statuses.put(t.getCanonicalName(), t.isInAPI() ? (t.isInApiThroughUse() ? "used" : "api") : "none");
+            }
+
+            Map<String, String> expected = new TreeMap<>();
+            expected.put("ApiStatus", "api");
+            expected.put("ApiStatus.Nested", "api");
+            expected.put("ApiStatus.Nested.Inner", "api");
+            expected.put("ApiStatus.Hidden", "none");
+            expected.put("ApiStatusSup.Used", "used");
+            expected.put("ApiStatusSup.Transitive", "used");
+            expected.put("ApiStatusSup.UsedByNested", "used");
+            expected.put("ApiStatusSup.UsedByInner", "used");
+            expected.put("ApiStatusSup.UsedByHidden", "none");
+
+            //Excluded, everything only it uses and the types nothing uses must not make it into the forest
+            Assert.assertEquals(expected, statuses);
+        } finally {
+            deleteDir(compRes.compilationPath);
+            analyzer.getCompilationValve().removeCompiledResults();
+        }
+    }
+
+    @Test
+    public void testInheritedMembersChildren() throws Exception {
+        ArchiveAndCompilationPath archive = createCompiledJar("a.jar", "misc/InheritedMembers.java");
+
+        JavaArchiveAnalyzer analyzer = new JavaArchiveAnalyzer(new API(
+                Arrays.asList(new ShrinkwrapArchive(archive.archive)),
+                null), Executors.newSingleThreadExecutor(), null, false,
+                InclusionFilter.acceptAll());
+
+        try {
+            JavaElementForest forest = analyzer.analyze();
+            forest.freeze();
+
+            //not searching recursively, that would create the children of the inherited members
+            TypeElement sub = (TypeElement) forest.getRoots().first().getChildren().stream()
+                    .filter(c -> "class InheritedMembers.Sub".equals(c.getFullHumanReadableString())).findFirst().get();
+
+            MethodElement method = (MethodElement) sub.getChildren().stream()
+                    .filter(c -> c instanceof MethodElement && ((MethodElement) c).isInherited()
+                            && "method".contentEquals(((MethodElement) c).getDeclaringElement().getSimpleName()))
+                    .findFirst().get();
+            Assert.assertEquals("method void InheritedMembers.Base<T>::method(T, int) @ " +
+                    "InheritedMembers.Sub", method.getFullHumanReadableString());
+
+            //the children are only created now and have to be frozen together with their parent
+            SortedSet<JavaElement> children = method.getChildren();
+            Assert.assertEquals(3, children.size());
+            Assert.assertEquals(2, children.stream().filter(c -> c instanceof MethodParameterElement).count());
+            Assert.assertEquals(1, children.stream().filter(c -> c instanceof AnnotationElement).count());
+            for (JavaElement c : children) {
+                Assert.assertSame(method, c.getParent());
+                if (c instanceof MethodParameterElement) {
+                    Assert.assertTrue(((MethodParameterElement) c).isInherited());
+                }
+            }
+
+            try {
+                children.clear();
+                Assert.fail("The children of a frozen inherited element should not be modifiable.");
+            } catch (UnsupportedOperationException e) {
+                //expected
+            }
+
+            //and are not created again
+            Assert.assertSame(children.first(), method.getChildren().first());
+        } finally {
+            deleteDir(archive.compilationPath);
+            analyzer.getCompilationValve().removeCompiledResults();
+        }
+    }
+
+    @Test
+    public void testInheritedMembersChildrenOnlyCreatedOnAnalysisThread() throws Exception {
+        ArchiveAndCompilationPath archive = createCompiledJar("a.jar", "misc/InheritedMembers.java");
+
+        JavaArchiveAnalyzer analyzer = new JavaArchiveAnalyzer(new API(
+                Arrays.asList(new ShrinkwrapArchive(archive.archive)),
+                null), Executors.newSingleThreadExecutor(), null, false,
+                InclusionFilter.acceptAll());
+
+        try {
+            JavaElementForest forest = analyzer.analyze();
+
+            TypeElement sub = (TypeElement) forest.getRoots().first().getChildren().stream()
+                    .filter(c -> "class InheritedMembers.Sub".equals(c.getFullHumanReadableString())).findFirst().get();
+            MethodElement method = (MethodElement) sub.getChildren().stream()
+                    .filter(c -> c instanceof MethodElement && ((MethodElement) c).isInherited()
+                            && "method".contentEquals(((MethodElement) c).getDeclaringElement().getSimpleName()))
+                    .findFirst().get();
+
+            Thread analysisThread = new Thread(() -> {});
+            analyzer.getProbingEnvironment().setAnalysisThread(analysisThread);
+
+            try {
+                method.getChildren();
+                Assert.fail("The children of an inherited element should not be created outside of the analysis.");
+            } catch (IllegalStateException e) {
+                //expected
+            }
+
+            analyzer.getProbingEnvironment().setAnalysisThread(Thread.currentThread());
+            Assert.assertEquals(3, method.getChildren().size());
+        } finally {
+            deleteDir(archive.compilationPath);
+            analyzer.getCompilationValve().removeCompiledResults();
+        }
+    }
+
     private Predicate<TypeElement> hasName(String name) {
         return t -> name.equals(t.getFullHumanReadableString());
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+
+package org.revapi.java;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+public class OverloadMatcherTest {
+
+    @Test
+    public void testExactMatchesArePaired() {
+        List<OverloadMatcher.Signature> as = new ArrayList<>();
+        as.add(sig(0, 1, 2));
+        as.add(sig(0));
+        as.add(sig(3, 1));
+
+        List<OverloadMatcher.Signature> bs = new ArrayList<>();
+        bs.add(sig(3, 1));
+        bs.add(sig(4));
+        bs.add(sig(0));
+        bs.add(sig(0, 1, 2));
+
+        Assert.assertArrayEquals(new int[]{3, 2, 0, 1}, OverloadMatcher.matchSignatures(as, bs));
+    }
+
+    @Test
+    public void testSameResultsAsGreedyMatchingOfAllCandidates() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 2000; ++round) {
+            //few distinct types so that there are many partial and exact matches
+            int nofTypes = 1 + random.nextInt(4);
+            int aSize = random.nextInt(6);
+            int bSize = aSize + random.nextInt(4);
+
+            List<OverloadMatcher.Signature> as = new ArrayList<>();
+            for (int i = 0; i < aSize; ++i) {
+                as.add(randomSignature(random, nofTypes));
+            }
+
+            List<OverloadMatcher.Signature> bs = new ArrayList<>();
+            for (int i = 0; i < bSize; ++i) {
+                //make exact matches likely
+                bs.add(random.nextBoolean() && aSize > 0 ? copy(as.get(random.nextInt(aSize)))
+                        : randomSignature(random, nofTypes));
+            }
+
+            Assert.assertArrayEquals("Round " + round, greedyMatch(as, bs), OverloadMatcher.matchSignatures(as, bs));
+        }
+    }
+
+    private static OverloadMatcher.Signature sig(int returnType, int... params) {
+        //the erasure "forgets" the odd types
+        int[] erased = new int[params.length];
+        for (int i = 0; i < params.length; ++i) {
+            erased[i] = params[i] & ~1;
+        }
+        return new OverloadMatcher.Signature(returnType, params, returnType & ~1, erased);
+    }
+
+    private static OverloadMatcher.Signature copy(OverloadMatcher.Signature sig) {
+        return new OverloadMatcher.Signature(sig.fullReturn, sig.fullParams.clone(), sig.erasedReturn,
+                sig.erasedParams.clone());
+    }
+
+    private static OverloadMatcher.Signature randomSignature(Random random, int nofTypes) {
+        int[] params = new int[random.nextInt(4)];
+        for (int i = 0; i < params.length; ++i) {
+            params[i] = random.nextInt(nofTypes);
+        }
+        return sig(random.nextInt(nofTypes), params);
+    }
+
+    /**
+     * The matching as it used to be done - each method is compared with all the remaining candidates.
+     */
+    private static int[] greedyMatch(List<OverloadMatcher.Signature> as, List<OverloadMatcher.Signature> bs) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < bs.size(); ++i) {
+            candidates.add(i);
+        }
+
+        int[] ret = new int[bs.size()];
+        int retIdx = 0;
+        for (OverloadMatcher.Signature a : as) {
+            float maxScore = 0;
+            int bestIdx = -1;
+            for (int i = 0; i < candidates.size(); ++i) {
+                float score = score(a, bs.get(candidates.get(i)));
+                if (maxScore <= score) {
+                    maxScore = score;
+                    bestIdx = i;
+                }
+            }
+            ret[retIdx++] = candidates.remove(bestIdx);
+        }
+
+        for (int c : candidates) {
+            ret[retIdx++] = c;
+        }
+
+        return ret;
+    }
+
+    private static float score(OverloadMatcher.Signature a, OverloadMatcher.Signature b) {
+        int maxParams = Math.max(a.fullParams.length, b.fullParams.length) + 1;
+
+        int[][] lengths = new int[a.fullParams.length + 1][b.fullParams.length + 1];
+        int common = 0;
+        for (int i = 0; i < a.fullParams.length; i++) {
+            for (int j = 0; j < b.fullParams.length; j++) {
+                int match = a.fullParams[i] == b.fullParams[j] ? 2 : a.erasedParams[i] == b.erasedParams[j] ? 1 : 0;
+                if (match > 0) {
+                    common = lengths[i + 1][j + 1] = lengths[i][j] + match;
+                } else {
+                    lengths[i + 1][j + 1] = Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+                }
+            }
+        }
+
+        if (a.fullReturn == b.fullReturn) {
+            common += 2;
+        } else if (a.erasedReturn == b.erasedReturn) {
+            common += 1;
+        }
+
+        return maxParams == 1 ? common + 2 : ((float) common) / maxParams;
+    }
+}
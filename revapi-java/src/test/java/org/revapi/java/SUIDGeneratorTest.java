@@ -19,8 +19,12 @@ package org.revapi.java;
 import java.io.File;
 import java.io.ObjectStreamClass;
 import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
 import javax.annotation.processing.AbstractProcessor;
@@ -30,14 +34,23 @@ import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.JavaCompiler;
 import javax.tools.ToolProvider;
 
+import org.jboss.dmr.ModelNode;
 import org.junit.Assert;
 import org.junit.Test;
+import org.revapi.API;
+import org.revapi.AnalysisContext;
 import org.revapi.java.checks.fields.SerialVersionUidUnchanged;
+import org.revapi.java.compilation.ProbingEnvironment;
+import org.revapi.java.model.FieldElement;
 import org.revapi.java.spi.TypeEnvironment;
 import org.revapi.java.suid.Empty;
 import org.revapi.java.suid.TestClass;
@@ -94,6 +107,90 @@ public class SUIDGeneratorTest {
         }
     }
 
+    @SupportedSourceVersion(SourceVersion.RELEASE_7)
+    @SupportedAnnotationTypes("java.lang.SuppressWarnings")
+    private static class IdComputationCountingAnnotationProcessor extends AbstractProcessor {
+        public List<Integer> computations = new ArrayList<>();
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(SuppressWarnings.class);
+
+            if (elements.isEmpty()) {
+                return false;
+            }
+
+            TypeElement testType = (TypeElement) elements.iterator().next();
+            VariableElement suid = ElementFilter.fieldsIn(testType.getEnclosedElements()).get(0);
+
+            ProbingEnvironment env = new ProbingEnvironment(new API(Collections.emptyList(), null));
+            env.setProcessingEnvironment(processingEnv);
+
+            org.revapi.java.model.TypeElement type = new org.revapi.java.model.TypeElement(env, null, testType,
+                    (DeclaredType) testType.asType());
+            type.setInApi(true);
+            FieldElement field = new FieldElement(env, null, suid, suid.asType());
+            type.getChildren().add(field);
+
+            //the structural id of a type is computed using the super classes of the type
+            int[] count = new int[1];
+            Supplier<TypeEnvironment> countingEnv = () -> new TypeEnvironment() {
+                @Nonnull
+                @Override
+                public Elements getElementUtils() {
+                    return processingEnv.getElementUtils();
+                }
+
+                @Nonnull
+                @Override
+                public Types getTypeUtils() {
+                    return processingEnv.getTypeUtils();
+                }
+
+                @Override
+                public boolean isExplicitlyIncluded(Element element) {
+                    return true;
+                }
+
+                @Override
+                public boolean isExplicitlyExcluded(Element element) {
+                    return false;
+                }
+
+                @Nonnull
+                @Override
+                public List<TypeMirror> getAllSuperClasses(@Nonnull TypeMirror type) {
+                    count[0]++;
+                    return TypeEnvironment.super.getAllSuperClasses(type);
+                }
+            };
+
+            SerialVersionUidUnchanged check = new SerialVersionUidUnchanged();
+            check.initialize(AnalysisContext.builder().build()
+                    .copyWithConfiguration(new ModelNode().setEmptyObject()));
+            check.setOldTypeEnvironment(countingEnv.get());
+            check.setNewTypeEnvironment(countingEnv.get());
+
+            Runnable visit = () -> {
+                check.visitField(field, field);
+                check.visitEnd();
+                computations.add(count[0]);
+            };
+
+            //the field is visited in the type and again in each subtype inheriting it
+            visit.run();
+            visit.run();
+
+            check.setOldTypeEnvironment(countingEnv.get());
+            visit.run();
+
+            check.setNewTypeEnvironment(countingEnv.get());
+            visit.run();
+
+            return true;
+        }
+    }
+
     @Test
     public void testSUIDGeneration() throws Exception {
         try {
@@ -117,6 +214,28 @@ public class SUIDGeneratorTest {
         }
     }
 
+    @Test
+    public void testIdsComputedOncePerTypeAndEnvironment() throws Exception {
+        try {
+            IdComputationCountingAnnotationProcessor ap = new IdComputationCountingAnnotationProcessor();
+
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+            JavaCompiler.CompilationTask task = compiler
+                    .getTask(null, null, null, null, null,
+                            Arrays.asList(new SourceInClassLoader("suid/WithSerialVersionUID.java")));
+
+            task.setProcessors(Arrays.asList(ap));
+
+            task.call();
+
+            //once for each environment, then again only for the environment that changed
+            Assert.assertEquals(Arrays.asList(2, 2, 3, 4), ap.computations);
+        } finally {
+            new File("WithSerialVersionUID.class").delete();
+        }
+    }
+
     @Test
     public void testHandlingEmptyClass() throws Exception {
         try {
@@ -16,9 +16,13 @@
 
 package org.revapi.java;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Objects;
 
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.junit.After;
 import org.junit.Assert;
@@ -31,6 +35,7 @@ import org.revapi.Report;
 import org.revapi.Revapi;
 import org.revapi.java.spi.Code;
 import org.revapi.java.spi.JavaModelElement;
+import org.revapi.simple.FileArchive;
 
 /**
  * @author Lukas Krejci
@@ -159,6 +164,72 @@ public class SupplementaryJarsTest extends AbstractJavaElementAnalyzerTest {
                 .count());
     }
 
+    @Test
+    public void testIncrementalAnalysisProducesSameResults() throws Exception {
+        List<Report> fullReports = analyzeSupplementary("{}");
+        List<Report> incrementalReports = analyzeSupplementary("{\"revapi\": {\"java\": {\"incremental\": true}}}");
+
+        Assert.assertEquals(fullReports.size(), incrementalReports.size());
+        for (Report r : fullReports) {
+            Assert.assertTrue(incrementalReports.stream().anyMatch(ir ->
+                    Objects.equals(String.valueOf(r.getOldElement()), String.valueOf(ir.getOldElement()))
+                            && Objects.equals(String.valueOf(r.getNewElement()), String.valueOf(ir.getNewElement()))
+                            && r.getDifferences().equals(ir.getDifferences())));
+        }
+    }
+
+    @Test
+    public void testFileBackedArchivesProduceSameResults() throws Exception {
+        List<Report> streamedReports = analyzeSupplementary("{}");
+
+        Path dir = Files.createTempDirectory("revapi-file-archives");
+        try {
+            Revapi revapi = createRevapi(CollectingReporter.class);
+
+            AnalysisContext ctx = AnalysisContext.builder(revapi)
+                    .withOldAPI(API.of(export(apiV1, dir)).supportedBy(export(supV1, dir)).build())
+                    .withNewAPI(API.of(export(apiV2, dir)).supportedBy(export(supV2, dir)).build())
+                    .build();
+
+            List<Report> fileReports;
+            try (AnalysisResult res = revapi.analyze(ctx)) {
+                Assert.assertTrue(res.isSuccess());
+                fileReports = res.getExtensions().getFirstExtension(CollectingReporter.class, null).getReports();
+            }
+
+            Assert.assertEquals(streamedReports.size(), fileReports.size());
+            Assert.assertTrue(containsDifference(fileReports, null, "class B.T$1.Private",
+                    Code.CLASS_NON_PUBLIC_PART_OF_API.code()));
+            Assert.assertTrue(containsDifference(fileReports, null, "class B.PrivateUsedClass",
+                    Code.CLASS_NON_PUBLIC_PART_OF_API.code()));
+
+            //the archives are used in place and must be left intact
+            Assert.assertEquals(4, Files.list(dir).count());
+        } finally {
+            deleteDir(dir);
+        }
+    }
+
+    private static FileArchive export(JavaArchive archive, Path dir) {
+        Path file = dir.resolve(archive.getName());
+        archive.as(ZipExporter.class).exportTo(file.toFile(), true);
+        return new FileArchive(file.toFile());
+    }
+
+    private List<Report> analyzeSupplementary(String configuration) throws Exception {
+        Revapi revapi = createRevapi(CollectingReporter.class);
+
+        AnalysisContext ctx = AnalysisContext.builder(revapi)
+                .withOldAPI(API.of(new ShrinkwrapArchive(apiV1)).supportedBy(new ShrinkwrapArchive(supV1)).build())
+                .withNewAPI(API.of(new ShrinkwrapArchive(apiV2)).supportedBy(new ShrinkwrapArchive(supV2)).build())
+                .withConfigurationFromJSON(configuration).build();
+
+        try (AnalysisResult res = revapi.analyze(ctx)) {
+            Assert.assertTrue(res.isSuccess());
+            return res.getExtensions().getFirstExtension(CollectingReporter.class, null).getReports();
+        }
+    }
+
     @Test
     public void testExcludedClassesDontDragUsedTypesIntoAPI() throws Exception {
         List<Report> allReports;
@@ -1,11 +1,24 @@
 package org.revapi.java;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.junit.Assert;
 import org.junit.Test;
+import org.revapi.API;
 import org.revapi.Difference;
+import org.revapi.Metrics;
+import org.revapi.java.compilation.InclusionFilter;
+import org.revapi.java.model.JavaElementForest;
+import org.revapi.java.model.TypeElement;
+import org.revapi.java.spi.UseSite;
 
 /**
  * @author Lukas Krejci
@@ -26,4 +39,42 @@ public class TestUseChainReporting extends AbstractJavaElementAnalyzerTest {
         Assert.assertEquals(2, diffs.size());
         Assert.assertTrue(diffs.stream().allMatch(d -> d.attachments.get("exampleUseChainInNewApi") != null));
     }
+
+    @Test
+    public void testShortestChainChosen() throws Exception {
+        ArchiveAndCompilationPath compRes = createCompiledJar("a.jar", "misc/UseChains.java",
+                "misc/UseChainsSup.java");
+
+        JavaArchive api = ShrinkWrap.create(JavaArchive.class, "api.jar")
+                .addAsResource(compRes.compilationPath.resolve("UseChains.class").toFile(), "UseChains.class");
+        JavaArchive sup = ShrinkWrap.create(JavaArchive.class, "sup.jar");
+        try (DirectoryStream<Path> classes = Files.newDirectoryStream(compRes.compilationPath, "UseChainsSup*.class")) {
+            for (Path c : classes) {
+                sup.addAsResource(c.toFile(), c.getFileName().toString());
+            }
+        }
+
+        JavaArchiveAnalyzer analyzer = new JavaArchiveAnalyzer(new API(Arrays.asList(new ShrinkwrapArchive(api)),
+                Arrays.asList(new ShrinkwrapArchive(sup))), Executors.newSingleThreadExecutor(), null,
+                false, InclusionFilter.acceptAll());
+
+        try {
+            JavaElementForest forest = analyzer.analyze();
+
+            TypeElement target = forest.search(TypeElement.class, true, null, null).stream()
+                    .filter(t -> "UseChainsSup.Target".equals(t.getCanonicalName())).findFirst().get();
+
+            UseChainIndex index = new UseChainIndex(analyzer.getProbingEnvironment(), Metrics.disabled());
+
+            //the target is also used through Long1 and Long2 by UseChains.a(), which comes first
+            List<UseChainIndex.TypeAndUseSite> chain = index.getExamplePathToApi(target);
+            Assert.assertEquals(1, chain.size());
+            Assert.assertEquals(UseSite.Type.RETURN_TYPE, chain.get(0).useSite.getUseType());
+            Assert.assertEquals("method UseChainsSup.Target UseChains::z()",
+                    chain.get(0).useSite.getSite().getFullHumanReadableString());
+        } finally {
+            deleteDir(compRes.compilationPath);
+            analyzer.getCompilationValve().removeCompiledResults();
+        }
+    }
 }
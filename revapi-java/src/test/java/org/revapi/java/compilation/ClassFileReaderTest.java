@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.java.compilation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+public class ClassFileReaderTest {
+
+    public static class Member$WithDollar {
+        public class Inner {
+        }
+    }
+
+    @Test
+    public void testTopLevelClass() throws Exception {
+        Assert.assertEquals(ClassFileReaderTest.class.getName(), canonicalName(ClassFileReaderTest.class));
+    }
+
+    @Test
+    public void testMemberClasses() throws Exception {
+        Assert.assertEquals("org.revapi.java.compilation.ClassFileReaderTest.Member$WithDollar",
+                canonicalName(Member$WithDollar.class));
+        Assert.assertEquals("org.revapi.java.compilation.ClassFileReaderTest.Member$WithDollar.Inner",
+                canonicalName(Member$WithDollar.Inner.class));
+    }
+
+    @Test
+    public void testAnonymousAndLocalClassesHaveNoCanonicalName() throws Exception {
+        class Local {
+        }
+
+        Object anonymous = new Object() {
+        };
+
+        Assert.assertNull(canonicalName(Local.class));
+        Assert.assertNull(canonicalName(anonymous.getClass()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidClassFile() throws Exception {
+        ClassFileReader.readCanonicalName(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void testTruncatedClassFile() throws Exception {
+        byte[] classFile = classFile(Member$WithDollar.Inner.class);
+
+        for (int length : new int[]{4, 10, classFile.length / 2, classFile.length - 1}) {
+            try {
+                ClassFileReader.readCanonicalName(new ByteArrayInputStream(Arrays.copyOf(classFile, length)));
+                Assert.fail("Reading a class file truncated to " + length + " bytes should have failed.");
+            } catch (IOException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testClassReferenceOutOfConstantPool() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(0xCAFEBABE);
+        out.writeInt(52);
+        //constant pool count
+        out.writeShort(3);
+        //#1 = Utf8 "A"
+        out.writeByte(1);
+        out.writeUTF("A");
+        //#2 = Class pointing out of the constant pool
+        out.writeByte(7);
+        out.writeShort(42);
+        //access flags, this class, super class, no interfaces, fields, methods nor attributes
+        out.writeShort(0);
+        out.writeShort(2);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+
+        ClassFileReader.readCanonicalName(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testAttributeNameOutOfConstantPool() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(0xCAFEBABE);
+        out.writeInt(52);
+        //constant pool count
+        out.writeShort(3);
+        //#1 = Utf8 "A"
+        out.writeByte(1);
+        out.writeUTF("A");
+        //#2 = Class A
+        out.writeByte(7);
+        out.writeShort(1);
+        //access flags, this class, super class, no interfaces, fields nor methods
+        out.writeShort(0);
+        out.writeShort(2);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        out.writeShort(0);
+        //a single attribute with the name out of the constant pool
+        out.writeShort(1);
+        out.writeShort(0xFFFF);
+        out.writeInt(0);
+
+        ClassFileReader.readCanonicalName(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static String canonicalName(Class<?> cls) throws IOException {
+        String resource = "/" + cls.getName().replace('.', '/') + ".class";
+        try (InputStream in = ClassFileReaderTest.class.getResourceAsStream(resource)) {
+            return ClassFileReader.readCanonicalName(in);
+        }
+    }
+
+    private static byte[] classFile(Class<?> cls) throws IOException {
+        String resource = "/" + cls.getName().replace('.', '/') + ".class";
+        try (InputStream in = ClassFileReaderTest.class.getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
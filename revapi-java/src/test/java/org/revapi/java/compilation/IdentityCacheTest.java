@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+
+package org.revapi.java.compilation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revapi.Metrics;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.14.5
+ */
+public class IdentityCacheTest {
+
+    @Test
+    public void testCachesByIdentity() {
+        AtomicInteger computations = new AtomicInteger();
+        Metrics metrics = new Metrics(true);
+        IdentityCache<String, String> cache = new IdentityCache<>(s -> {
+            computations.incrementAndGet();
+            return s.toUpperCase();
+        }, 10, metrics, "test");
+
+        String a = "a";
+        String equalToA = new String("a");
+
+        Assert.assertEquals("A", cache.get(a));
+        Assert.assertEquals("A", cache.get(a));
+        Assert.assertEquals("A", cache.get(equalToA));
+
+        Assert.assertEquals(2, computations.get());
+        Assert.assertEquals(Long.valueOf(1), metrics.snapshot().getCounters().get("test.hits"));
+        Assert.assertEquals(Long.valueOf(2), metrics.snapshot().getCounters().get("test.misses"));
+    }
+
+    @Test
+    public void testBounded() {
+        AtomicInteger computations = new AtomicInteger();
+        IdentityCache<Object, String> cache = new IdentityCache<>(o -> {
+            computations.incrementAndGet();
+            return o.toString();
+        }, 2, Metrics.disabled(), "test");
+
+        Object a = new Object();
+        Object b = new Object();
+        Object c = new Object();
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+        cache.get(c);
+        Assert.assertEquals(3, computations.get());
+
+        //a was evicted when c was added
+        cache.get(a);
+        Assert.assertEquals(4, computations.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        AtomicInteger computations = new AtomicInteger();
+        IdentityCache<Object, String> cache = new IdentityCache<>(o -> {
+            computations.incrementAndGet();
+            return o.toString();
+        }, 2, Metrics.disabled(), "test");
+
+        Object a = new Object();
+        Object b = new Object();
+        Object c = new Object();
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+        Assert.assertEquals(3, computations.get());
+
+        //b was the least recently used when c was added, so a is still cached
+        cache.get(a);
+        Assert.assertEquals(3, computations.get());
+
+        cache.get(b);
+        Assert.assertEquals(4, computations.get());
+    }
+}
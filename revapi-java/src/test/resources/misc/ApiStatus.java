@@ -0,0 +1,26 @@
+public class ApiStatus {
+
+    public ApiStatusSup.Used used() {
+        return null;
+    }
+
+    public ApiStatusSup.Excluded excluded() {
+        return null;
+    }
+
+    public static class Nested {
+        public ApiStatusSup.UsedByNested field;
+
+        public static class Inner {
+            public ApiStatusSup.UsedByInner method() {
+                return null;
+            }
+        }
+    }
+
+    private static class Hidden {
+        public ApiStatusSup.UsedByHidden method() {
+            return null;
+        }
+    }
+}
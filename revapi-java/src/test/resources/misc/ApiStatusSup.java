@@ -0,0 +1,37 @@
+public class ApiStatusSup {
+    public static class Used {
+        public Transitive method() {
+            return null;
+        }
+    }
+
+    public static class Transitive {
+
+    }
+
+    public static class Excluded {
+        public ThroughExcluded method() {
+            return null;
+        }
+    }
+
+    public static class ThroughExcluded {
+
+    }
+
+    public static class UsedByNested {
+
+    }
+
+    public static class UsedByInner {
+
+    }
+
+    public static class UsedByHidden {
+
+    }
+
+    public static class Unused {
+
+    }
+}
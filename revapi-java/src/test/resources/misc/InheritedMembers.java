@@ -0,0 +1,11 @@
+public class InheritedMembers {
+
+    public static class Base<T> {
+        @Deprecated
+        public void method(T param, int other) {
+        }
+    }
+
+    public static class Sub extends Base<String> {
+    }
+}
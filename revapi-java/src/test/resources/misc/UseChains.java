@@ -0,0 +1,10 @@
+public class UseChains {
+
+    public UseChainsSup.Long1 a() {
+        return null;
+    }
+
+    public UseChainsSup.Target z() {
+        return null;
+    }
+}
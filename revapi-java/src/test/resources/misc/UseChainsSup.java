@@ -0,0 +1,17 @@
+public class UseChainsSup {
+
+    public static class Long1 {
+        public Long2 method() {
+            return null;
+        }
+    }
+
+    public static class Long2 {
+        public Target method() {
+            return null;
+        }
+    }
+
+    public static class Target {
+    }
+}
@@ -0,0 +1,8 @@
+package org.revapi.java.suid;
+
+@SuppressWarnings("asdf")
+public class WithSerialVersionUID implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int f1;
+}
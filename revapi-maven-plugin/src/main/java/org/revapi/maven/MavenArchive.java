@@ -111,11 +111,17 @@ class MavenArchive implements Archive.Versioned {
         return "MavenArchive[gav=" + gav + ", file=" + file + ']';
     }
 
-    public static final class Jar extends MavenArchive {
+    public static final class Jar extends MavenArchive implements Archive.FileBacked {
 
         public Jar(Artifact artifact) {
             super(artifact);
         }
+
+        @Nonnull
+        @Override
+        public File getFile() {
+            return super.file;
+        }
     }
 
     public static final class War extends MavenArchive {
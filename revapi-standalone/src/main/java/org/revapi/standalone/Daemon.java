@@ -0,0 +1,535 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.standalone;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jboss.forge.furnace.Furnace;
+import org.revapi.Revapi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The daemon mode of the CLI. The daemon loads the extensions once and then runs the analyses requested by the clients,
+ * so that the clients don't have to pay for the startup of Furnace and the extensions (and the warm-up of the JVM) on
+ * each invocation.
+ *
+ * <p>The daemon listens on an ephemeral loopback port and writes the port together with a random secret to a file
+ * readable only by the user that started it. A client has to present the secret, so only the users that can read the
+ * file can make the daemon read files on their behalf.
+ *
+ * <p>The analyses are run one at a time and the standard output and error of the daemon are sent to the client that
+ * requested the analysis while it runs. This way the output of the reporters and the logs end up in the client's
+ * console.
+ *
+ * @author Lukas Krejci
+ * @since 0.6.5
+ */
+final class Daemon {
+    private static final Logger LOG = LoggerFactory.getLogger(Daemon.class);
+
+    private static final int MAGIC = 0x52564150; //RVAP
+    private static final int VERSION = 1;
+
+    static final byte REQUEST_INVALID = 0;
+    static final byte REQUEST_ANALYZE = 1;
+    static final byte REQUEST_STOP = 2;
+
+    private static final byte RESPONSE_OUT = 1;
+    private static final byte RESPONSE_ERR = 2;
+    private static final byte RESPONSE_EXIT = 3;
+
+    /**
+     * The time in milliseconds a client has to send the request in. The daemon serves one client at a time, so
+     * a client that connects but doesn't send anything would otherwise block everyone else.
+     */
+    private static final int REQUEST_TIMEOUT = 10_000;
+
+    /**
+     * The maximum number of the items of any list in the request. Larger requests are rejected so that a client cannot
+     * make the daemon allocate arbitrary amounts of memory.
+     */
+    static final int MAX_REQUEST_ITEMS = 4096;
+
+    private final Revapi revapi;
+    private final String secret;
+    private final Map<List<String>, Main.ArchivesAndSupplementaryArchives> resolvedGavs;
+
+    private Daemon(Revapi revapi, String secret, boolean cacheBaselines) {
+        this.revapi = revapi;
+        this.secret = secret;
+        this.resolvedGavs = cacheBaselines ? new HashMap<>() : null;
+    }
+
+    /**
+     * Starts the daemon and serves the requests until a client asks it to stop.
+     *
+     * @param cacheDir the local cache of the extensions
+     * @param extensionGAVs the extensions to load
+     * @param daemonFile the file to write the connection details to
+     * @param cacheBaselines whether to remember the archives resolved for the released GAVs
+     */
+    static void serve(File cacheDir, String[] extensionGAVs, File daemonFile, boolean cacheBaselines)
+        throws Exception {
+
+        Furnace furnace = Main.startFurnace(cacheDir, extensionGAVs);
+        try {
+            Daemon daemon = new Daemon(Main.buildRevapi(furnace), newSecret(), cacheBaselines);
+
+            try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+                writeDaemonFile(daemonFile.toPath(), server.getLocalPort(), daemon.secret);
+
+                LOG.info("Revapi daemon listening on port " + server.getLocalPort() + ".");
+
+                try {
+                    boolean running = true;
+                    while (running) {
+                        try (Socket socket = server.accept()) {
+                            running = daemon.handle(socket);
+                        } catch (IOException e) {
+                            LOG.warn("Failed to handle a request.", e);
+                        }
+                    }
+                } finally {
+                    Files.deleteIfExists(daemonFile.toPath());
+                }
+            }
+
+            LOG.info("Revapi daemon stopped.");
+        } finally {
+            furnace.stop();
+        }
+    }
+
+    /**
+     * Asks the daemon to run the analysis and copies its output to the standard output and error.
+     *
+     * @param daemonFile the file the daemon wrote its connection details to
+     * @param request the analysis to run
+     * @return the exit code, 0 if the analysis succeeded
+     */
+    static int analyze(File daemonFile, Request request) throws IOException {
+        return send(daemonFile, REQUEST_ANALYZE, request);
+    }
+
+    /**
+     * @param daemonFile the file the daemon wrote its connection details to
+     * @return the exit code
+     */
+    static int stop(File daemonFile) throws IOException {
+        return send(daemonFile, REQUEST_STOP, null);
+    }
+
+    private static int send(File daemonFile, byte type, Request request) throws IOException {
+        Properties details = new Properties();
+        try (InputStream in = Files.newInputStream(daemonFile.toPath())) {
+            details.load(in);
+        }
+
+        int port = Integer.parseInt(details.getProperty("port"));
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            writeHandshake(out, details.getProperty("secret"), type);
+            if (request != null) {
+                request.write(out);
+            }
+            out.flush();
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte responseType = in.readByte();
+                if (responseType == RESPONSE_EXIT) {
+                    return in.readInt();
+                }
+
+                PrintStream target = responseType == RESPONSE_ERR ? System.err : System.out;
+                int len = in.readInt();
+                while (len > 0) {
+                    int cnt = in.read(buffer, 0, Math.min(len, buffer.length));
+                    if (cnt < 0) {
+                        throw new EOFException();
+                    }
+                    target.write(buffer, 0, cnt);
+                    len -= cnt;
+                }
+                target.flush();
+            }
+        } catch (EOFException e) {
+            throw new IOException("The daemon closed the connection unexpectedly.", e);
+        }
+    }
+
+    /**
+     * @return false if the daemon should stop, true otherwise
+     */
+    private boolean handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        byte type;
+        Request request = null;
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        try {
+            type = readHandshake(in, secret);
+            if (type == REQUEST_ANALYZE) {
+                request = Request.read(in);
+            }
+        } catch (SocketTimeoutException e) {
+            LOG.warn("Ignoring a client that didn't send its request in time.");
+            return true;
+        } finally {
+            socket.setSoTimeout(0);
+        }
+
+        if (type == REQUEST_STOP) {
+            writeExit(out, 0);
+            return false;
+        } else if (type != REQUEST_ANALYZE) {
+            return true;
+        }
+
+        PrintStream origOut = System.out;
+        PrintStream origErr = System.err;
+        PrintStream clientOut = new PrintStream(new ResponseOutputStream(out, RESPONSE_OUT), true);
+        PrintStream clientErr = new PrintStream(new ResponseOutputStream(out, RESPONSE_ERR), true);
+
+        int status;
+        System.setOut(clientOut);
+        System.setErr(clientErr);
+        try {
+            long start = System.currentTimeMillis();
+
+            Main.analyze(revapi, resolve(request.oldArchivePaths, request.oldGavs,
+                request.oldSupplementaryArchivePaths, "Old"), resolve(request.newArchivePaths, request.newGavs,
+                request.newSupplementaryArchivePaths, "New"), request.configFiles, request.additionalConfig);
+
+            LOG.debug("Analysis finished in " + (System.currentTimeMillis() - start) + "ms.");
+
+            status = 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            clientOut.flush();
+            clientErr.flush();
+            System.setOut(origOut);
+            System.setErr(origErr);
+        }
+
+        writeExit(out, status);
+
+        return true;
+    }
+
+    static void writeHandshake(DataOutputStream out, String secret, byte type) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(secret);
+        out.writeByte(type);
+    }
+
+    /**
+     * @return the type of the request or {@link #REQUEST_INVALID} if the request is in an unsupported format, has an
+     * invalid secret or is of an unknown type
+     */
+    static byte readHandshake(DataInputStream in, String secret) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            LOG.warn("Ignoring a request in an unsupported format.");
+            return REQUEST_INVALID;
+        }
+
+        if (!MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+            in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+            LOG.warn("Ignoring a request with an invalid secret.");
+            return REQUEST_INVALID;
+        }
+
+        byte type = in.readByte();
+        if (type != REQUEST_ANALYZE && type != REQUEST_STOP) {
+            LOG.warn("Ignoring a request of an unknown type " + type + ".");
+            return REQUEST_INVALID;
+        }
+
+        return type;
+    }
+
+    private Main.ArchivesAndSupplementaryArchives resolve(String[] archivePaths, String[] gavs,
+        String[] supplementaryArchivePaths, String apiName) {
+
+        if (archivePaths != null || resolvedGavs == null
+            || Arrays.stream(gavs).anyMatch(gav -> gav.endsWith("-SNAPSHOT"))) {
+            return Main.resolveArchives(archivePaths, gavs, supplementaryArchivePaths, apiName);
+        }
+
+        List<String> key = Arrays.asList(gavs);
+        Main.ArchivesAndSupplementaryArchives ret = resolvedGavs.get(key);
+
+        //the local maven repository might have been cleaned up in the meantime
+        if (ret == null || !exist(ret.archives) || !exist(ret.supplementaryArchives)) {
+            ret = Main.resolveArchives(null, gavs, null, apiName);
+            resolvedGavs.put(key, ret);
+        } else {
+            LOG.debug("Using the previously resolved archives of " + key + ".");
+        }
+
+        return ret;
+    }
+
+    private static boolean exist(List<FileArchive> archives) {
+        return archives.stream().allMatch(a -> a.getFile().isFile());
+    }
+
+    private static void writeExit(DataOutputStream out, int status) throws IOException {
+        synchronized (out) {
+            out.writeByte(RESPONSE_EXIT);
+            out.writeInt(status);
+            out.flush();
+        }
+    }
+
+    private static String newSecret() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+
+        StringBuilder bld = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            bld.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return bld.toString();
+    }
+
+    /**
+     * Writes the connection details to a temporary file readable only by the current user and then moves it in place,
+     * so that there is no moment when the file exists with the default permissions or only partially written.
+     */
+    private static void writeDaemonFile(Path file, int port, String secret) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp;
+        try {
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            //not a POSIX file system
+            tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        }
+
+        try {
+            Properties details = new Properties();
+            details.setProperty("port", Integer.toString(port));
+            details.setProperty("secret", secret);
+
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                details.store(out, "Revapi daemon");
+            }
+
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * The analysis requested by the client. The paths are made absolute, because the daemon is most probably running
+     * in a different working directory.
+     */
+    static final class Request {
+        final String[] oldArchivePaths;
+        final String[] oldGavs;
+        final String[] oldSupplementaryArchivePaths;
+        final String[] newArchivePaths;
+        final String[] newGavs;
+        final String[] newSupplementaryArchivePaths;
+        final String[] configFiles;
+        final Map<String, String> additionalConfig;
+
+        Request(String[] oldArchivePaths, String[] oldGavs, String[] oldSupplementaryArchivePaths,
+            String[] newArchivePaths, String[] newGavs, String[] newSupplementaryArchivePaths, String[] configFiles,
+            Map<String, String> additionalConfig) {
+            this.oldArchivePaths = absolute(oldArchivePaths);
+            this.oldGavs = oldGavs;
+            this.oldSupplementaryArchivePaths = absolute(oldSupplementaryArchivePaths);
+            this.newArchivePaths = absolute(newArchivePaths);
+            this.newGavs = newGavs;
+            this.newSupplementaryArchivePaths = absolute(newSupplementaryArchivePaths);
+            this.configFiles = absolute(configFiles);
+            this.additionalConfig = additionalConfig;
+        }
+
+        private static String[] absolute(String[] paths) {
+            if (paths == null) {
+                return null;
+            }
+
+            String[] ret = new String[paths.length];
+            for (int i = 0; i < paths.length; ++i) {
+                ret[i] = new File(paths[i]).getAbsolutePath();
+            }
+            return ret;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            writeStrings(out, oldArchivePaths);
+            writeStrings(out, oldGavs);
+            writeStrings(out, oldSupplementaryArchivePaths);
+            writeStrings(out, newArchivePaths);
+            writeStrings(out, newGavs);
+            writeStrings(out, newSupplementaryArchivePaths);
+            writeStrings(out, configFiles);
+
+            out.writeInt(additionalConfig.size());
+            for (Map.Entry<String, String> e : additionalConfig.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeBoolean(e.getValue() != null);
+                if (e.getValue() != null) {
+                    out.writeUTF(e.getValue());
+                }
+            }
+        }
+
+        static Request read(DataInputStream in) throws IOException {
+            String[] oldArchivePaths = readStrings(in);
+            String[] oldGavs = readStrings(in);
+            String[] oldSupplementaryArchivePaths = readStrings(in);
+            String[] newArchivePaths = readStrings(in);
+            String[] newGavs = readStrings(in);
+            String[] newSupplementaryArchivePaths = readStrings(in);
+            String[] configFiles = readStrings(in);
+
+            int size = readSize(in);
+            Map<String, String> additionalConfig = new HashMap<>();
+            for (int i = 0; i < size; ++i) {
+                String key = in.readUTF();
+                additionalConfig.put(key, in.readBoolean() ? in.readUTF() : null);
+            }
+
+            return new Request(oldArchivePaths, oldGavs, oldSupplementaryArchivePaths, newArchivePaths, newGavs,
+                newSupplementaryArchivePaths, configFiles, additionalConfig);
+        }
+
+        private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+            if (strings == null) {
+                out.writeInt(-1);
+                return;
+            }
+
+            out.writeInt(strings.length);
+            for (String s : strings) {
+                out.writeUTF(s);
+            }
+        }
+
+        private static String[] readStrings(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size < 0) {
+                return null;
+            }
+
+            String[] ret = new String[checkSize(size)];
+            for (int i = 0; i < size; ++i) {
+                ret[i] = in.readUTF();
+            }
+            return ret;
+        }
+
+        private static int readSize(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException("Invalid number of items in the request: " + size + ".");
+            }
+            return checkSize(size);
+        }
+
+        private static int checkSize(int size) throws IOException {
+            if (size > MAX_REQUEST_ITEMS) {
+                throw new IOException("Too many items in the request: " + size + ". At most " + MAX_REQUEST_ITEMS
+                    + " are supported.");
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Sends everything written to it to the client as a response chunk of given type.
+     */
+    private static final class ResponseOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        ResponseOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+
+            //the output and error streams share the connection
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
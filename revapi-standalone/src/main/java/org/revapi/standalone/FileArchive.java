@@ -29,7 +29,7 @@ import org.revapi.Archive;
  * @author Lukas Krejci
  * @since 1.0
  */
-final class FileArchive implements Archive {
+final class FileArchive implements Archive.FileBacked {
 
     private final File file;
 
@@ -37,6 +37,12 @@ final class FileArchive implements Archive {
         file = f;
     }
 
+    @Nonnull
+    @Override
+    public File getFile() {
+        return file;
+    }
+
     @Nonnull
     @Override
     public String getName() {
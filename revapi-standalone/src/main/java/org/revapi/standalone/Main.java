@@ -116,6 +116,18 @@ public final class Main {
         System.out.println(pad + " --cache-dir=<DIR>");
         System.out.println(pad + "    The location of local cache of extensions to use to locate artifacts. " +
             "Defaults to 'extensions' directory under revapi installation dir.");
+        System.out.println(pad + " --daemon=<FILE>");
+        System.out.println(pad + "    Starts a daemon that keeps the extensions loaded and runs the analyses requested using" +
+            " --connect. The daemon listens on a loopback port and writes the port and a secret needed to connect" +
+            " to the provided file. Only the extensions and the cache dir are used with this option.");
+        System.out.println(pad + " --cache-baselines");
+        System.out.println(pad + "    Only with --daemon. Makes the daemon remember the archives it resolved for the released" +
+            " (non-SNAPSHOT) GAVs so that they are not resolved again by the subsequent analyses.");
+        System.out.println(pad + " --connect=<FILE>");
+        System.out.println(pad + "    Runs the analysis in the daemon started with --daemon=<FILE> instead of in this" +
+            " process. The extensions of the daemon are used.");
+        System.out.println(pad + " --stop");
+        System.out.println(pad + "    Only with --connect. Stops the daemon.");
         System.out.println();
         System.out.println("You can specify the old API either using -o and -s where you specify the filesystem paths" +
             " to the archives and supplementary archives respectively or you can use -a to specify the GAVs of the" +
@@ -156,8 +168,12 @@ public final class Main {
         Map<String, String> additionalConfigOptions = new HashMap<>();
         String[] configFiles = null;
         File cacheDir = new File(baseDir, "extensions");
+        File daemonFile = null;
+        File connectFile = null;
+        boolean cacheBaselines = false;
+        boolean stop = false;
 
-        LongOpt[] longOpts = new LongOpt[12];
+        LongOpt[] longOpts = new LongOpt[16];
         longOpts[0] = new LongOpt("usage", LongOpt.NO_ARGUMENT, null, 'u');
         longOpts[1] = new LongOpt("help", LongOpt.NO_ARGUMENT, null, 'h');
         longOpts[2] = new LongOpt("extensions", LongOpt.REQUIRED_ARGUMENT, null, 'e');
@@ -170,6 +186,10 @@ public final class Main {
         longOpts[9] = new LongOpt("cache-dir", LongOpt.REQUIRED_ARGUMENT, null, 'd');
         longOpts[10] = new LongOpt("old-gavs", LongOpt.REQUIRED_ARGUMENT, null, 'a');
         longOpts[11] = new LongOpt("new-gavs", LongOpt.REQUIRED_ARGUMENT, null, 'b');
+        longOpts[12] = new LongOpt("daemon", LongOpt.REQUIRED_ARGUMENT, null, 'S');
+        longOpts[13] = new LongOpt("cache-baselines", LongOpt.NO_ARGUMENT, null, 'B');
+        longOpts[14] = new LongOpt("connect", LongOpt.REQUIRED_ARGUMENT, null, 'C');
+        longOpts[15] = new LongOpt("stop", LongOpt.NO_ARGUMENT, null, 'K');
 
         Getopt opts = new Getopt(scriptFileName, realArgs, "uhe:o:n:s:t:D:c:d:a:b:", longOpts);
         int c;
@@ -210,6 +230,18 @@ public final class Main {
             case 'b':
                 newGavs = opts.getOptarg().split(",");
                 break;
+            case 'S':
+                daemonFile = new File(opts.getOptarg());
+                break;
+            case 'B':
+                cacheBaselines = true;
+                break;
+            case 'C':
+                connectFile = new File(opts.getOptarg());
+                break;
+            case 'K':
+                stop = true;
+                break;
             case ':':
                 System.err.println("Argument required for option " +
                     (char) opts.getOptopt());
@@ -226,41 +258,45 @@ public final class Main {
             }
         }
 
-        if (extensionGAVs == null || (oldArchivePaths == null && oldGavs == null) ||
+        if (daemonFile != null) {
+            if (extensionGAVs == null) {
+                usage(scriptFileName);
+                System.exit(1);
+            }
+
+            Daemon.serve(cacheDir, extensionGAVs, daemonFile, cacheBaselines);
+            System.exit(0);
+        }
+
+        if (connectFile != null && stop) {
+            System.exit(Daemon.stop(connectFile));
+        }
+
+        if ((extensionGAVs == null && connectFile == null) || (oldArchivePaths == null && oldGavs == null) ||
             (newArchivePaths == null && newGavs == null)) {
 
             usage(scriptFileName);
             System.exit(1);
         }
 
-        List<FileArchive> oldArchives = null;
-        List<FileArchive> newArchives = null;
-        List<FileArchive> oldSupplementaryArchives = null;
-        List<FileArchive> newSupplementaryArchives = null;
+        if (connectFile != null) {
+            if (extensionGAVs != null) {
+                System.err.println("The extensions loaded by the daemon are used, ignoring --extensions.");
+            }
 
-        if (oldArchivePaths == null) {
-            ArchivesAndSupplementaryArchives res = convertGavs(oldGavs, "Old API Maven artifact");
-            oldArchives = res.archives;
-            oldSupplementaryArchives = res.supplementaryArchives;
-        } else {
-            oldArchives = convertPaths(oldArchivePaths, "Old API files");
-            oldSupplementaryArchives = oldSupplementaryArchivePaths == null ? emptyList() :
-                convertPaths(oldSupplementaryArchivePaths, "Old API supplementary files");
-        }
+            Daemon.Request request = new Daemon.Request(oldArchivePaths, oldGavs, oldSupplementaryArchivePaths,
+                newArchivePaths, newGavs, newSupplementaryArchivePaths, configFiles, additionalConfigOptions);
 
-        if (newArchivePaths == null) {
-            ArchivesAndSupplementaryArchives res = convertGavs(newGavs, "New API Maven artifact");
-            newArchives = res.archives;
-            newSupplementaryArchives = res.supplementaryArchives;
-        } else {
-            newArchives = convertPaths(newArchivePaths, "New API files");
-            newSupplementaryArchives = newSupplementaryArchivePaths == null ? emptyList() :
-                convertPaths(newSupplementaryArchivePaths, "New API supplementary files");
+            System.exit(Daemon.analyze(connectFile, request));
         }
 
+        ArchivesAndSupplementaryArchives oldApi = resolveArchives(oldArchivePaths, oldGavs,
+            oldSupplementaryArchivePaths, "Old");
+        ArchivesAndSupplementaryArchives newApi = resolveArchives(newArchivePaths, newGavs,
+            newSupplementaryArchivePaths, "New");
+
         try {
-            run(cacheDir, extensionGAVs, oldArchives, oldSupplementaryArchives, newArchives,
-                newSupplementaryArchives, configFiles, additionalConfigOptions);
+            run(cacheDir, extensionGAVs, oldApi, newApi, configFiles, additionalConfigOptions);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -268,11 +304,19 @@ public final class Main {
         System.exit(0);
     }
 
-    private static void run(File cacheDir, String[] extensionGAVs, List<FileArchive> oldArchives,
-        List<FileArchive> oldSupplementaryArchives, List<FileArchive> newArchives,
-        List<FileArchive> newSupplementaryArchives, String[] configFiles, Map<String, String> additionalConfig)
+    private static void run(File cacheDir, String[] extensionGAVs, ArchivesAndSupplementaryArchives oldApi,
+        ArchivesAndSupplementaryArchives newApi, String[] configFiles, Map<String, String> additionalConfig)
         throws Exception {
 
+        Furnace furnace = startFurnace(cacheDir, extensionGAVs);
+        try {
+            analyze(buildRevapi(furnace), oldApi, newApi, configFiles, additionalConfig);
+        } finally {
+            furnace.stop();
+        }
+    }
+
+    static Furnace startFurnace(File cacheDir, String[] extensionGAVs) throws Exception {
         ExtensionResolver.init();
 
         Furnace furnace = new FurnaceImpl();
@@ -294,55 +338,85 @@ public final class Main {
                     request.perform();
                 }
             }
+        } catch (Exception e) {
+            furnace.stop();
+            throw e;
+        }
 
-            Revapi.Builder builder = Revapi.builder();
+        return furnace;
+    }
 
-            for (Addon addon : furnace.getAddonRegistry().getAddons()) {
-                Addons.waitUntilStarted(addon);
-                builder.withAllExtensionsFrom(addon.getClassLoader());
-            }
+    static Revapi buildRevapi(Furnace furnace) {
+        Revapi.Builder builder = Revapi.builder();
 
-            Revapi revapi = builder.withAllExtensionsFromThreadContextClassLoader().build();
+        for (Addon addon : furnace.getAddonRegistry().getAddons()) {
+            Addons.waitUntilStarted(addon);
+            builder.withAllExtensionsFrom(addon.getClassLoader());
+        }
+
+        return builder.withAllExtensionsFromThreadContextClassLoader().build();
+    }
+
+    static void analyze(Revapi revapi, ArchivesAndSupplementaryArchives oldApi,
+        ArchivesAndSupplementaryArchives newApi, String[] configFiles, Map<String, String> additionalConfig)
+        throws Exception {
 
-            AnalysisContext.Builder ctxBld = AnalysisContext.builder(revapi)
-                .withOldAPI(API.of(oldArchives).supportedBy(oldSupplementaryArchives).build())
-                .withNewAPI(API.of(newArchives).supportedBy(newSupplementaryArchives).build());
+        AnalysisContext.Builder ctxBld = AnalysisContext.builder(revapi)
+            .withOldAPI(API.of(oldApi.archives).supportedBy(oldApi.supplementaryArchives).build())
+            .withNewAPI(API.of(newApi.archives).supportedBy(newApi.supplementaryArchives).build());
 
-            if (configFiles != null) {
-                for (String cf : configFiles) {
-                    File f = new File(cf);
-                    checkCanRead(f, "Configuration file");
+        if (configFiles != null) {
+            for (String cf : configFiles) {
+                File f = new File(cf);
+                checkCanRead(f, "Configuration file");
 
-                    try (FileInputStream is = new FileInputStream(f)) {
-                        ctxBld.mergeConfigurationFromJSONStream(is);
-                    }
+                try (FileInputStream is = new FileInputStream(f)) {
+                    ctxBld.mergeConfigurationFromJSONStream(is);
                 }
             }
+        }
+
+        for (Map.Entry<String, String> e : additionalConfig.entrySet()) {
+            String[] keyPath = e.getKey().split("\\.");
+            ModelNode additionalNode = new ModelNode();
+            ModelNode key = additionalNode.get(keyPath);
 
-            for (Map.Entry<String, String> e : additionalConfig.entrySet()) {
-                String[] keyPath = e.getKey().split("\\.");
-                ModelNode additionalNode = new ModelNode();
-                ModelNode key = additionalNode.get(keyPath);
-
-                String value = e.getValue();
-                if (value.startsWith("[") && value.endsWith("]")) {
-                    String[] values = value.substring(1, value.length() - 1).split("\\s*,\\s*");
-                    for(String v : values) {
-                        key.add(v);
-                    }
-                } else {
-                    key.set(value);
+            String value = e.getValue();
+            if (value.startsWith("[") && value.endsWith("]")) {
+                String[] values = value.substring(1, value.length() - 1).split("\\s*,\\s*");
+                for(String v : values) {
+                    key.add(v);
                 }
-                ctxBld.mergeConfiguration(additionalNode);
+            } else {
+                key.set(value);
             }
+            ctxBld.mergeConfiguration(additionalNode);
+        }
 
-            try (AnalysisResult result = revapi.analyze(ctxBld.build())) {
-                if (!result.isSuccess()) {
-                    throw result.getFailure();
-                }
+        try (AnalysisResult result = revapi.analyze(ctxBld.build())) {
+            if (!result.isSuccess()) {
+                throw result.getFailure();
             }
-        } finally {
-            furnace.stop();
+        }
+    }
+
+    /**
+     * @param archivePaths the paths to the API archives or null if the archives are given by GAVs
+     * @param gavs the GAVs of the API archives, used if the paths are null
+     * @param supplementaryArchivePaths the paths to the supplementary archives, used with the archive paths
+     * @param apiName "Old" or "New", used in the error messages
+     */
+    static ArchivesAndSupplementaryArchives resolveArchives(String[] archivePaths, String[] gavs,
+        String[] supplementaryArchivePaths, String apiName) {
+
+        if (archivePaths == null) {
+            return convertGavs(gavs, apiName + " API Maven artifact");
+        } else {
+            List<FileArchive> archives = convertPaths(archivePaths, apiName + " API files");
+            List<FileArchive> supplementaryArchives = supplementaryArchivePaths == null ? emptyList() :
+                convertPaths(supplementaryArchivePaths, apiName + " API supplementary files");
+
+            return new ArchivesAndSupplementaryArchives(archives, supplementaryArchives);
         }
     }
 
@@ -357,7 +431,7 @@ public final class Main {
         return archives;
     }
 
-    private static ArchivesAndSupplementaryArchives convertGavs(String[] gavs, String errorMessagePrefix) {
+    static ArchivesAndSupplementaryArchives convertGavs(String[] gavs, String errorMessagePrefix) {
         MavenContainer mvn = new MavenContainer();
         RepositorySystem repositorySystem = mvn.getRepositorySystem();
         DefaultRepositorySystemSession session = mvn.setupRepoSession(repositorySystem, mvn.getSettings());
@@ -410,7 +484,7 @@ public final class Main {
         }
     }
 
-    private static class ArchivesAndSupplementaryArchives {
+    static class ArchivesAndSupplementaryArchives {
         final List<FileArchive> archives;
         final List<FileArchive> supplementaryArchives;
 
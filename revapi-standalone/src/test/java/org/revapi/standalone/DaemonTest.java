@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.standalone;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.6.5
+ */
+public class DaemonTest {
+
+    @Test
+    public void testHandshake() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Daemon.writeHandshake(out, "secret", Daemon.REQUEST_ANALYZE);
+        Daemon.writeHandshake(out, "secret", Daemon.REQUEST_STOP);
+
+        DataInputStream in = input(bytes);
+        Assert.assertEquals(Daemon.REQUEST_ANALYZE, Daemon.readHandshake(in, "secret"));
+        Assert.assertEquals(Daemon.REQUEST_STOP, Daemon.readHandshake(in, "secret"));
+    }
+
+    @Test
+    public void testInvalidSecretRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Daemon.writeHandshake(new DataOutputStream(bytes), "guess", Daemon.REQUEST_STOP);
+
+        Assert.assertEquals(Daemon.REQUEST_INVALID, Daemon.readHandshake(input(bytes), "secret"));
+    }
+
+    @Test
+    public void testUnsupportedFormatRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(42);
+        out.writeInt(1);
+
+        Assert.assertEquals(Daemon.REQUEST_INVALID, Daemon.readHandshake(input(bytes), "secret"));
+    }
+
+    @Test
+    public void testUnknownRequestTypeRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Daemon.writeHandshake(new DataOutputStream(bytes), "secret", (byte) 42);
+
+        Assert.assertEquals(Daemon.REQUEST_INVALID, Daemon.readHandshake(input(bytes), "secret"));
+    }
+
+    @Test
+    public void testRequestRoundTrip() throws Exception {
+        Map<String, String> additionalConfig = new HashMap<>();
+        additionalConfig.put("revapi.java.checks.skip", "true");
+        additionalConfig.put("revapi.reporter.text.minSeverity", null);
+
+        Daemon.Request request = new Daemon.Request(new String[]{"old.jar"}, null, new String[]{"old-dep.jar"},
+            null, new String[]{"org.revapi:revapi:0.7.0"}, null, new String[]{"config.json", "other.json"},
+            additionalConfig);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        request.write(new DataOutputStream(bytes));
+
+        Daemon.Request read = Daemon.Request.read(input(bytes));
+
+        Assert.assertArrayEquals(new String[]{new File("old.jar").getAbsolutePath()}, read.oldArchivePaths);
+        Assert.assertNull(read.oldGavs);
+        Assert.assertArrayEquals(new String[]{new File("old-dep.jar").getAbsolutePath()},
+            read.oldSupplementaryArchivePaths);
+        Assert.assertNull(read.newArchivePaths);
+        Assert.assertArrayEquals(new String[]{"org.revapi:revapi:0.7.0"}, read.newGavs);
+        Assert.assertNull(read.newSupplementaryArchivePaths);
+        Assert.assertArrayEquals(request.configFiles, read.configFiles);
+        Assert.assertEquals(additionalConfig, read.additionalConfig);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedRequestRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(Integer.MAX_VALUE);
+
+        Daemon.Request.read(input(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedAdditionalConfigRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < 7; ++i) {
+            out.writeInt(-1);
+        }
+        out.writeInt(Daemon.MAX_REQUEST_ITEMS + 1);
+
+        Daemon.Request.read(input(bytes));
+    }
+
+    private static DataInputStream input(ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
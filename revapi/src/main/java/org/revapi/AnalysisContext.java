@@ -129,6 +129,7 @@ public final class AnalysisContext {
     private final API oldApi;
     private final API newApi;
     private final Map<String, Object> data;
+    private final Metrics metrics;
 
     /**
      * Constructor
@@ -137,9 +138,10 @@ public final class AnalysisContext {
      * @param oldApi        the old API
      * @param newApi        the new API
      * @param data          the data that should be attached to the analysis context
+     * @param metrics       the metrics of the analysis
      */
     private AnalysisContext(@Nonnull Locale locale, @Nullable ModelNode configuration, @Nonnull API oldApi,
-                           @Nonnull API newApi, @Nonnull Map<String, Object> data) {
+                           @Nonnull API newApi, @Nonnull Map<String, Object> data, @Nonnull Metrics metrics) {
         this.locale = locale;
         if (configuration == null) {
             this.configuration = new ModelNode();
@@ -150,6 +152,7 @@ public final class AnalysisContext {
         this.oldApi = oldApi;
         this.newApi = newApi;
         this.data = data;
+        this.metrics = metrics;
     }
 
     /**
@@ -193,7 +196,17 @@ public final class AnalysisContext {
      * one.
      */
     public AnalysisContext copyWithConfiguration(ModelNode configuration) {
-        return new AnalysisContext(this.locale, configuration, this.oldApi, this.newApi, this.data);
+        return new AnalysisContext(this.locale, configuration, this.oldApi, this.newApi, this.data, this.metrics);
+    }
+
+    /**
+     * Used by Revapi to supply each analysis with fresh metrics.
+     *
+     * @param metrics the metrics to collect the analysis metrics to
+     * @return an analysis context that is a clone of this instance but with the provided metrics
+     */
+    AnalysisContext copyWithMetrics(Metrics metrics) {
+        return new AnalysisContext(this.locale, this.configuration, this.oldApi, this.newApi, this.data, metrics);
     }
 
     @Nonnull
@@ -221,6 +234,18 @@ public final class AnalysisContext {
         return data.get(key);
     }
 
+    /**
+     * The extensions can record the durations of their operations and count interesting events using the returned
+     * metrics. The metrics are shared by all the extensions participating in a single analysis and may be disabled.
+     *
+     * @return the metrics of the analysis this context is used in
+     * @since 0.8.5
+     */
+    @Nonnull
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     private static <T extends Configurable>
     void addExtensionIds(Collection<Class<? extends T>> cs, List<String> extensionIds) {
         cs.stream()
@@ -329,7 +354,7 @@ public final class AnalysisContext {
         }
 
         public AnalysisContext build() {
-            return new AnalysisContext(locale, configuration, oldApi, newApi, data);
+            return new AnalysisContext(locale, configuration, oldApi, newApi, data, Metrics.disabled());
         }
 
         private ModelNode convertToNewStyle(ModelNode configuration) {
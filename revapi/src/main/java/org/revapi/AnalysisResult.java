@@ -46,6 +46,8 @@ public final class AnalysisResult implements AutoCloseable {
 
     private final Exception failure;
     private final Extensions extensions;
+    private final ReportingPipeline reportingPipeline;
+    private final Metrics metrics;
 
     /**
      * A factory method for users that need to report success without actually running any analysis. The returned
@@ -70,8 +72,15 @@ public final class AnalysisResult implements AutoCloseable {
     }
 
     AnalysisResult(@Nullable Exception failure, Extensions extensions) {
+        this(failure, extensions, null, Metrics.disabled());
+    }
+
+    AnalysisResult(@Nullable Exception failure, Extensions extensions, @Nullable ReportingPipeline reportingPipeline,
+                   Metrics metrics) {
         this.failure = failure;
         this.extensions = extensions;
+        this.reportingPipeline = reportingPipeline;
+        this.metrics = metrics;
     }
 
     public boolean isSuccess() {
@@ -91,6 +100,30 @@ public final class AnalysisResult implements AutoCloseable {
         }
     }
 
+    /**
+     * The metrics collected during the analysis. Revapi itself collects the following:
+     * <ul>
+     *     <li>timers {@code forests.old} and {@code forests.new} - the construction of the element forests,
+     *     <li>timers {@code sorts}, {@code filters}, {@code descends}, {@code analysisBegins},
+     *     {@code analysisEnds}, {@code analyses}, {@code transforms} and {@code reports} - the individual stages of
+     *     the analysis of each pair of elements,
+     *     <li>timers {@code <filter class>.applies} and {@code <filter class>.shouldDescendInto} - the individual
+     *     element filters,
+     *     <li>counters {@code elementPairsVisited}, {@code differencesProduced}, {@code differencesSwallowed} and
+     *     {@code differencesReported}.
+     * </ul>
+     * The extensions may collect other metrics on top of these.
+     *
+     * <p>The metrics are only collected if enabled using {@link Revapi.Builder#withMetrics(boolean)}, otherwise
+     * the returned snapshot is empty.
+     *
+     * @return the snapshot of the metrics collected so far
+     * @since 0.8.5
+     */
+    public Metrics.Snapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
     /**
      * @return the extension instances run during the analysis, each with its corresponding analysis context containing
      * the configuration used for the extension
@@ -99,7 +132,35 @@ public final class AnalysisResult implements AutoCloseable {
         return extensions;
     }
 
+    /**
+     * Closes all the extensions used during the analysis. If the reporting was asynchronous, this first waits for all
+     * the reports to be delivered to the reporters.
+     *
+     * @throws Exception the failure of an asynchronous reporter that didn't already fail the analysis, if any, after
+     *                   all the extensions are closed
+     */
     @Override public void close() throws Exception {
+        Exception reportingFailure = null;
+        try {
+            if (reportingPipeline != null) {
+                TIMING_LOG.debug("Flushing the reporting pipeline");
+                reportingPipeline.close();
+                reportingFailure = reportingPipeline.takeFailure();
+            }
+        } finally {
+            closeExtensions();
+        }
+
+        if (TIMING_LOG.isDebugEnabled()) {
+            TIMING_LOG.debug(metrics.snapshot().toString());
+        }
+
+        if (reportingFailure != null) {
+            throw reportingFailure;
+        }
+    }
+
+    private void closeExtensions() {
         TIMING_LOG.debug("Closing all extensions");
         for (Map.Entry<?, AnalysisContext> e : extensions) {
             Object ext = e.getKey();
@@ -115,7 +176,6 @@ public final class AnalysisResult implements AutoCloseable {
             }
         }
         TIMING_LOG.debug("Extensions closed. Analysis complete.");
-        TIMING_LOG.debug(Stats.asString());
     }
 
     public static final class Extensions implements Iterable<Map.Entry<?, AnalysisContext>> {
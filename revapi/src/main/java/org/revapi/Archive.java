@@ -16,6 +16,7 @@
 
 package org.revapi;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -45,4 +46,17 @@ public interface Archive {
     interface Versioned extends Archive {
         @Nonnull String getVersion();
     }
+
+    /**
+     * Extension of the archive interface for archives that are backed by a file on the local filesystem. The file
+     * must have exactly the same contents as is provided by the {@link #openStream()} method.
+     * <p>
+     * This enables the extensions to access the archive directly instead of having to copy its contents somewhere
+     * first. The extensions must not modify the file.
+     *
+     * @since 0.8.5
+     */
+    interface FileBacked extends Archive {
+        @Nonnull File getFile();
+    }
 }
@@ -27,6 +27,13 @@ import javax.annotation.Nonnull;
  */
 public interface ArchiveAnalyzer {
 
+    /**
+     * Analyzes the archives and produces the element forest. If Revapi is configured to construct the forests
+     * concurrently (see {@link Revapi.Builder#withForestConstructionThreads(int)}), this method can be called from
+     * a thread other than the one that obtained this analyzer and concurrently with the analysis of the other API.
+     *
+     * @return the element forest of the analyzed API
+     */
     @Nonnull
     ElementForest analyze();
 }
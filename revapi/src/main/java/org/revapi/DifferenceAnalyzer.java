@@ -16,6 +16,9 @@
 
 package org.revapi;
 
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /**
@@ -27,6 +30,20 @@ import javax.annotation.Nullable;
  */
 public interface DifferenceAnalyzer extends AutoCloseable {
 
+    /**
+     * Called before the {@link #open()} to inform the analyzer about the difference codes that the configured
+     * transforms discard no matter what elements they are found on (see
+     * {@link DifferenceTransform#isDiscardingAll(String)}). The analyzer can use this to skip looking for such
+     * differences altogether.
+     *
+     * <p>The predicate can only be used during this call. The default implementation does nothing.
+     *
+     * @param discarded the predicate telling whether the differences with given code are always discarded
+     * @since 0.8.5
+     */
+    default void setDiscardedDifferenceCodes(@Nonnull Predicate<String> discarded) {
+    }
+
     /**
      * Called right before the analysis starts. Can be used to "warm up" the analyzer. The corresponding
      * {@link #close()} method is provided through the {@link java.lang.AutoCloseable} super interface.
@@ -52,4 +69,36 @@ public interface DifferenceAnalyzer extends AutoCloseable {
      * @return a report detailing the difference found between these two elements
      */
     Report endAnalysis(@Nullable Element oldElement, @Nullable Element newElement);
+
+    /**
+     * Called after {@link #beginAnalysis(Element, Element)} of two elements that both exist to find out whether the
+     * children of the elements need to be analyzed. This can be used to skip the subtrees that the analyzer knows
+     * cannot contain any differences. Note that the element filters are still consulted as to whether to descend into
+     * the elements.
+     *
+     * <p>The default implementation returns true.
+     *
+     * @param oldElement the element from the old archives
+     * @param newElement the element from the new archives
+     * @return true if the children of the elements should be analyzed, false otherwise
+     * @since 0.8.5
+     */
+    default boolean isDescendRequired(@Nonnull Element oldElement, @Nonnull Element newElement) {
+        return true;
+    }
+
+    /**
+     * Tells whether the elements of the reports produced by this analyzer can be accessed by the reporters from other
+     * threads while the analysis is running, which is what happens with the asynchronous reporting (see
+     * {@link Revapi.Builder#withAsynchronousReporting(int)}). If not, the reports of this analyzer are delivered to
+     * the reporters on the analyzing thread, after all the reports submitted to them before have been processed.
+     *
+     * <p>The default implementation returns true.
+     *
+     * @return true if the reported elements can be used from other threads concurrently with the analysis
+     * @since 0.8.5
+     */
+    default boolean isAsynchronousReportingSupported() {
+        return true;
+    }
 }
@@ -42,6 +42,10 @@ import org.revapi.configuration.Configurable;
 public interface DifferenceTransform<T extends Element> extends AutoCloseable, Configurable {
 
     /**
+     * The patterns are obtained once per analysis, after the transform is initialized, so they should not change
+     * during the analysis. The patterns consisting of a literal difference code, optionally followed by {@code .*},
+     * are dispatched to more efficiently than the general regular expressions.
+     *
      * @return The list of regexes to match the difference codes this transform can handle.
      */
     @Nonnull
@@ -63,4 +67,21 @@ public interface DifferenceTransform<T extends Element> extends AutoCloseable, C
      */
     @Nullable
     Difference transform(@Nullable T oldElement, @Nullable T newElement, @Nonnull Difference difference);
+
+    /**
+     * Tells whether this transform discards all the differences with the given code, regardless of the elements they
+     * are found on or their attachments. The difference analyzers are told about such codes so that they don't need to
+     * look for such differences at all.
+     *
+     * <p>This is only called with the codes matching at least one of the {@link #getDifferenceCodePatterns()}. The
+     * default implementation returns false.
+     *
+     * @param code the difference code
+     * @return true if the {@link #transform(Element, Element, Difference)} returns null for all the differences with
+     * the code, false otherwise
+     * @since 0.8.5
+     */
+    default boolean isDiscardingAll(@Nonnull String code) {
+        return false;
+    }
 }
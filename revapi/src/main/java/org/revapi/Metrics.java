@@ -0,0 +1,367 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A thread-safe registry of timers and counters collected during a single analysis. Revapi creates a new instance for
+ * each analysis and makes it available to the extensions through {@link AnalysisContext#getMetrics()}. The collected
+ * values can be obtained using {@link AnalysisResult#getMetrics()}.
+ *
+ * <p>The timers measure in nanoseconds and keep a histogram of the measured durations with buckets of power-of-two
+ * sizes. Unlike the deprecated {@link Stats}, each measurement is independent, so the timers can be used concurrently
+ * and in nested fashion.
+ *
+ * <p>If the metrics are disabled, the timers and counters do nothing and the snapshot is empty.
+ *
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+public final class Metrics {
+    private static final Metrics DISABLED = new Metrics(false);
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled whether the metrics should be collected
+     */
+    public Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return a shared instance that doesn't collect any metrics
+     */
+    @Nonnull
+    public static Metrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param name the name of the timer
+     * @return the timer with given name, created on the first access
+     */
+    @Nonnull
+    public Timer timer(@Nonnull String name) {
+        if (!enabled) {
+            return Timer.NOOP;
+        }
+
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    /**
+     * @param name the name of the counter
+     * @return the counter with given name, created on the first access
+     */
+    @Nonnull
+    public Counter counter(@Nonnull String name) {
+        if (!enabled) {
+            return Counter.NOOP;
+        }
+
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * @return the point-in-time values of all the timers and counters
+     */
+    @Nonnull
+    public Snapshot snapshot() {
+        Map<String, TimerSnapshot> ts = new TreeMap<>();
+        timers.forEach((n, t) -> ts.put(n, t.snapshot()));
+
+        Map<String, Long> cs = new TreeMap<>();
+        counters.forEach((n, c) -> cs.put(n, c.get()));
+
+        return new Snapshot(ts, cs);
+    }
+
+    public static class Timer {
+        private static final Timer NOOP = new Timer() {
+            @Override
+            public long start() {
+                return 0;
+            }
+
+            @Override
+            public long stop(long startTime, @Nullable Object cause) {
+                return 0;
+            }
+
+            @Override
+            public void record(long durationNanos, @Nullable Object cause) {
+            }
+        };
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+        private volatile long max;
+        //only the string representation is kept so that the cause can be garbage collected
+        private volatile String offender;
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; ++i) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @return the start time to pass to {@link #stop(long)}
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * Records the duration since the start time.
+         *
+         * @param startTime the value previously returned from {@link #start()}
+         * @return the recorded duration in nanoseconds
+         */
+        public long stop(long startTime) {
+            return stop(startTime, null);
+        }
+
+        /**
+         * Records the duration since the start time, remembering the cause if it is the longest duration so far.
+         *
+         * @param startTime the value previously returned from {@link #start()}
+         * @param cause the object that caused the duration, e.g. the analyzed element
+         * @return the recorded duration in nanoseconds
+         */
+        public long stop(long startTime, @Nullable Object cause) {
+            long duration = System.nanoTime() - startTime;
+            record(duration, cause);
+            return duration;
+        }
+
+        /**
+         * Records a duration measured elsewhere.
+         *
+         * @param durationNanos the duration in nanoseconds
+         * @param cause the object that caused the duration or null
+         */
+        public void record(long durationNanos, @Nullable Object cause) {
+            if (durationNanos < 0) {
+                durationNanos = 0;
+            }
+
+            count.increment();
+            total.add(durationNanos);
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(durationNanos)].increment();
+
+            if (durationNanos > max) {
+                synchronized (this) {
+                    if (durationNanos > max) {
+                        max = durationNanos;
+                        offender = cause == null ? null : cause.toString();
+                    }
+                }
+            }
+        }
+
+        private TimerSnapshot snapshot() {
+            long[] hist = new long[buckets.length];
+            for (int i = 0; i < buckets.length; ++i) {
+                hist[i] = buckets[i].sum();
+            }
+
+            long m;
+            String o;
+            synchronized (this) {
+                m = max;
+                o = offender;
+            }
+
+            return new TimerSnapshot(count.sum(), total.sum(), m, o, hist);
+        }
+    }
+
+    public static class Counter {
+        private static final Counter NOOP = new Counter() {
+            @Override
+            public void add(long value) {
+            }
+        };
+
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            add(1);
+        }
+
+        public void add(long value) {
+            this.value.add(value);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    public static final class TimerSnapshot {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final String worstOffender;
+        private final long[] histogram;
+
+        private TimerSnapshot(long count, long totalNanos, long maxNanos, String worstOffender, long[] histogram) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.worstOffender = worstOffender;
+            this.histogram = histogram;
+        }
+
+        /**
+         * @return the number of recorded durations
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : ((double) totalNanos) / count;
+        }
+
+        /**
+         * @return the string representation of the cause of the longest recorded duration, if known
+         */
+        @Nullable
+        public String getWorstOffender() {
+            return worstOffender;
+        }
+
+        /**
+         * The histogram of the recorded durations. The value at index {@code i > 0} is the number of durations
+         * between 2<sup>i - 1</sup> (inclusive) and 2<sup>i</sup> (exclusive) nanoseconds. The value at index 0 is
+         * the number of zero durations.
+         *
+         * @return a copy of the histogram
+         */
+        @Nonnull
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Estimates the percentile from the histogram. The estimate is the upper bound of the bucket the percentile
+         * falls into, so it is precise to within a factor of 2.
+         *
+         * @param percentile the percentile between 0 and 100
+         * @return the estimated percentile in nanoseconds
+         */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long cumulative = 0;
+            for (int i = 0; i < histogram.length; ++i) {
+                cumulative += histogram[i];
+                if (cumulative >= rank && cumulative > 0) {
+                    return i == 0 ? 0 : Math.min(maxNanos, i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "{count = " + count + ", total = " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "ms, mean = " +
+                    String.format("%.3fms", getMeanNanos() / 1_000_000) + ", p99 <= " +
+                    String.format("%.3fms", getPercentileNanos(99) / 1_000_000d) + ", max = " +
+                    String.format("%.3fms", maxNanos / 1_000_000d) + " caused by " + worstOffender + "}";
+        }
+    }
+
+    public static final class Snapshot {
+        private final Map<String, TimerSnapshot> timers;
+        private final Map<String, Long> counters;
+
+        private Snapshot(Map<String, TimerSnapshot> timers, Map<String, Long> counters) {
+            this.timers = Collections.unmodifiableMap(timers);
+            this.counters = Collections.unmodifiableMap(counters);
+        }
+
+        /**
+         * @return the timers sorted by name
+         */
+        @Nonnull
+        public Map<String, TimerSnapshot> getTimers() {
+            return timers;
+        }
+
+        /**
+         * @return the counters sorted by name
+         */
+        @Nonnull
+        public Map<String, Long> getCounters() {
+            return counters;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder bld = new StringBuilder("Metrics:");
+
+            if (timers.isEmpty() && counters.isEmpty()) {
+                return bld.append(" <none>").toString();
+            }
+
+            timers.entrySet().stream()
+                    .sorted(Comparator.comparingLong(
+                            (Map.Entry<String, TimerSnapshot> e) -> e.getValue().getTotalNanos()).reversed())
+                    .forEach(e -> bld.append('\n').append(e.getKey()).append(": ").append(e.getValue()));
+
+            counters.forEach((n, v) -> bld.append('\n').append(n).append(": ").append(v));
+
+            return bld.toString();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the reports to the reporters asynchronously. Each reporter has its own bounded queue of reports and its own
+ * thread consuming that queue, so the reporters receive the reports in the order they were submitted. If a queue
+ * is full, the submission blocks until the reporter catches up.
+ *
+ * <p>If a reporter fails or its thread is interrupted, the rest of the reports for it are discarded, but its queue
+ * keeps being drained so that the submissions and flushes never block indefinitely. The failure is rethrown by the
+ * next {@link #flush()} or, if there is none, made available through {@link #takeFailure()} once the pipeline is
+ * closed. Each failure is only ever thrown once.
+ *
+ * <p>The reporters look at the reported elements on their own threads, so the pipeline is only used for the reports of
+ * the difference analyzers that {@link DifferenceAnalyzer#isAsynchronousReportingSupported() support} that.
+ *
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+final class ReportingPipeline implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ReportingPipeline.class);
+
+    private static final Object END = new Object();
+
+    private final List<Consumer> consumers;
+    private boolean closed;
+
+    ReportingPipeline(Collection<Reporter> reporters, int queueCapacity) {
+        consumers = new ArrayList<>(reporters.size());
+        for (Reporter r : reporters) {
+            Consumer c = new Consumer(r, queueCapacity);
+            consumers.add(c);
+            c.start();
+        }
+    }
+
+    /**
+     * Submits the report to all the reporters, possibly blocking until there is space in their queues.
+     *
+     * @param report the report to submit
+     */
+    void report(Report report) {
+        if (closed) {
+            throw new IllegalStateException("Reporting pipeline already closed.");
+        }
+
+        for (Consumer c : consumers) {
+            put(c.queue, report);
+        }
+    }
+
+    /**
+     * Blocks until all the reports submitted so far are delivered to all the reporters.
+     *
+     * @throws Exception the first failure of any of the reporters that has not been thrown yet, if any
+     */
+    void flush() throws Exception {
+        List<CountDownLatch> barriers = new ArrayList<>(consumers.size());
+        for (Consumer c : consumers) {
+            CountDownLatch barrier = new CountDownLatch(1);
+            barriers.add(barrier);
+            put(c.queue, barrier);
+        }
+
+        try {
+            for (CountDownLatch b : barriers) {
+                b.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the reporters to process the reports.", e);
+        }
+
+        Exception failure = takeFailure();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns the failures of the reporters that have not been returned before. The first of them is returned with
+     * the rest added to it as suppressed exceptions.
+     *
+     * @return the first new failure of any of the reporters or null if there is none
+     */
+    @Nullable
+    Exception takeFailure() {
+        Exception ret = null;
+        for (Consumer c : consumers) {
+            //read the failure just once, the reporter thread might still be running
+            Exception f = c.failure;
+            if (f == null || c.failureTaken) {
+                continue;
+            }
+
+            c.failureTaken = true;
+
+            if (ret == null) {
+                ret = f;
+            } else {
+                ret.addSuppressed(f);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Delivers all the remaining reports and stops the reporting threads.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        for (Consumer c : consumers) {
+            put(c.queue, END);
+        }
+
+        try {
+            for (Consumer c : consumers) {
+                c.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the reporters to finish.", e);
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a reporter to accept a report.", e);
+        }
+    }
+
+    private static final class Consumer extends Thread {
+        final BlockingQueue<Object> queue;
+        private final Reporter reporter;
+        volatile Exception failure;
+
+        //only accessed by the thread using the pipeline
+        boolean failureTaken;
+
+        Consumer(Reporter reporter, int queueCapacity) {
+            super("Revapi Reporter Thread (" + reporter.getClass().getName() + ")");
+            setDaemon(true);
+            this.reporter = reporter;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    //keep draining the queue so that no one waits for this thread in vain
+                    if (failure == null) {
+                        failure = new IllegalStateException("Reporting thread of " + reporter + " interrupted.", e);
+                    }
+                    continue;
+                }
+
+                if (item == END) {
+                    return;
+                } else if (item instanceof CountDownLatch) {
+                    ((CountDownLatch) item).countDown();
+                } else if (failure == null) {
+                    try {
+                        reporter.report((Report) item);
+                    } catch (Exception e) {
+                        LOG.warn("Reporter " + reporter + " failed to report " + item + ". It will not receive any" +
+                                " further reports.", e);
+                        failure = e;
+                    } catch (Throwable t) {
+                        LOG.warn("Reporter " + reporter + " failed to report " + item + ". It will not receive any" +
+                                " further reports.", t);
+                        failure = new IllegalStateException("Reporter " + reporter + " failed.", t);
+                    }
+                }
+            }
+        }
+    }
+}
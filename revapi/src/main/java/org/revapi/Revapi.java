@@ -19,6 +19,8 @@ package org.revapi;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -29,16 +31,27 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.jboss.dmr.ModelNode;
 import org.revapi.configuration.Configurable;
 import org.revapi.configuration.ConfigurationValidator;
 import org.revapi.configuration.ValidationResult;
+import org.revapi.simple.SimpleElementForest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,7 +70,12 @@ public final class Revapi {
     private final Set<Class<? extends DifferenceTransform<?>>> availableTransforms;
     private final Set<Class<? extends ElementFilter>> availableFilters;
     private final ConfigurationValidator configurationValidator;
-    private final Map<String, List<DifferenceTransform<?>>> matchingTransformsCache = new HashMap<>();
+    private final ExecutorService forestConstructionExecutor;
+    private final int forestConstructionThreads;
+    private final int reportingQueueCapacity;
+    private final Boolean collectMetrics;
+    private final boolean freezeForests;
+    private volatile TransformIndex transformIndex;
 
     /**
      * Use the {@link #builder()} instead.
@@ -72,12 +90,38 @@ public final class Revapi {
                   @Nonnull Set<Class<? extends Reporter>> availableReporters,
                   @Nonnull Set<Class<? extends DifferenceTransform<?>>> availableTransforms,
                   @Nonnull Set<Class<? extends ElementFilter>> elementFilters) {
+        this(availableApiAnalyzers, availableReporters, availableTransforms, elementFilters, null, -1, 0, null,
+                false);
+    }
+
+    /**
+     * The builder makes sure the parameters are valid.
+     *
+     * @param forestConstructionExecutor the executor to construct the element forests with or null
+     * @param forestConstructionThreads the number of threads to construct the element forests with if no executor is
+     *                                  provided. 0 means 2 threads per API analyzer, a negative value means the
+     *                                  forests are constructed serially on the analyzing thread.
+     * @param reportingQueueCapacity the capacity of the queue of each reporter or 0 if reporting is synchronous
+     * @param collectMetrics whether to collect the metrics or null to only collect them with the timing log enabled
+     * @param freezeForests whether to freeze the simple element forests once they are constructed
+     */
+    private Revapi(Set<Class<? extends ApiAnalyzer>> availableApiAnalyzers,
+                   Set<Class<? extends Reporter>> availableReporters,
+                   Set<Class<? extends DifferenceTransform<?>>> availableTransforms,
+                   Set<Class<? extends ElementFilter>> elementFilters,
+                   @Nullable ExecutorService forestConstructionExecutor, int forestConstructionThreads,
+                   int reportingQueueCapacity, @Nullable Boolean collectMetrics, boolean freezeForests) {
 
         this.availableApiAnalyzers = availableApiAnalyzers;
         this.availableReporters = availableReporters;
         this.availableTransforms = availableTransforms;
         this.availableFilters = elementFilters;
         this.configurationValidator = new ConfigurationValidator();
+        this.forestConstructionExecutor = forestConstructionExecutor;
+        this.forestConstructionThreads = forestConstructionThreads;
+        this.reportingQueueCapacity = reportingQueueCapacity;
+        this.collectMetrics = collectMetrics;
+        this.freezeForests = freezeForests;
     }
 
     @Nonnull
@@ -165,6 +209,9 @@ public final class Revapi {
     public AnalysisResult analyze(@Nonnull AnalysisContext analysisContext) {
         TIMING_LOG.debug("Analysis starts");
 
+        Metrics metrics = new Metrics(collectMetrics == null ? TIMING_LOG.isDebugEnabled() : collectMetrics);
+        analysisContext = analysisContext.copyWithMetrics(metrics);
+
         AnalysisResult.Extensions extensions = prepareAnalysis(analysisContext);
 
         StreamSupport.stream(extensions.spliterator(), false)
@@ -173,18 +220,67 @@ public final class Revapi {
 
         TIMING_LOG.debug("Initialization complete.");
 
-        matchingTransformsCache.clear();
+        Transforms transforms = getTransforms(extensions);
+        Filters filters = new Filters(extensions.getFilters().keySet(), metrics);
+        AnalysisMetrics analysisMetrics = new AnalysisMetrics(metrics);
+
+        ReportingPipeline reportingPipeline = reportingQueueCapacity > 0
+                ? new ReportingPipeline(extensions.getReporters().keySet(), reportingQueueCapacity)
+                : null;
 
         Exception error = null;
+        ExecutorService executor = null;
+        List<Forests> forests = new ArrayList<>(extensions.getAnalyzers().size());
         try {
+            executor = getForestConstructionExecutor(extensions.getAnalyzers().size());
+
+            //the forest construction of all the analyzers is started upfront so that the forests of the subsequent
+            //analyzers can be constructed while the previous ones are being compared.
             for (ApiAnalyzer a : extensions.getAnalyzers().keySet()) {
-                analyzeWith(a, analysisContext.getOldApi(), analysisContext.getNewApi(), extensions);
+                forests.add(new Forests(a, analysisContext.getOldApi(), analysisContext.getNewApi(), executor,
+                        freezeForests, metrics));
+            }
+
+            for (Forests f : forests) {
+                analyzeWith(f, extensions, filters, transforms, reportingPipeline, analysisMetrics);
             }
         } catch (Exception t) {
             error = t;
+        } finally {
+            for (Forests f : forests) {
+                f.cancel();
+            }
+
+            if (executor != null && executor != forestConstructionExecutor) {
+                executor.shutdownNow();
+            }
+        }
+
+        return new AnalysisResult(error, extensions, reportingPipeline, metrics);
+    }
+
+    @Nullable
+    private ExecutorService getForestConstructionExecutor(int nofAnalyzers) {
+        if (forestConstructionExecutor != null) {
+            return forestConstructionExecutor;
         }
 
-        return new AnalysisResult(error, extensions);
+        if (forestConstructionThreads < 0) {
+            return null;
+        }
+
+        int threads = forestConstructionThreads == 0 ? 2 * nofAnalyzers : forestConstructionThreads;
+
+        return Executors.newFixedThreadPool(Math.max(1, threads), new ThreadFactory() {
+            private final AtomicInteger cnt = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Revapi Forest Construction Thread #" + cnt.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     private <T extends Configurable> Map<T, AnalysisContext>
@@ -234,20 +330,23 @@ public final class Revapi {
         return validationResult;
     }
 
-    private void analyzeWith(ApiAnalyzer apiAnalyzer, API oldApi, API newApi, AnalysisResult.Extensions extensions)
+    private void analyzeWith(Forests forests, AnalysisResult.Extensions extensions, Filters filters,
+                             Transforms transforms, @Nullable ReportingPipeline reportingPipeline,
+                             AnalysisMetrics metrics)
             throws Exception {
+        ApiAnalyzer apiAnalyzer = forests.apiAnalyzer;
 
         if (TIMING_LOG.isDebugEnabled()) {
-            TIMING_LOG.debug("Commencing analysis using " + apiAnalyzer + " on:\nOld API:\n" + oldApi + "\n\nNew API:\n"
-                    + newApi);
+            TIMING_LOG.debug("Commencing analysis using " + apiAnalyzer + " on:\nOld API:\n" + forests.oldApi +
+                    "\n\nNew API:\n" + forests.newApi);
         }
 
-        ArchiveAnalyzer oldAnalyzer = apiAnalyzer.getArchiveAnalyzer(oldApi);
-        ArchiveAnalyzer newAnalyzer = apiAnalyzer.getArchiveAnalyzer(newApi);
+        ArchiveAnalyzer oldAnalyzer = forests.oldAnalyzer;
+        ArchiveAnalyzer newAnalyzer = forests.newAnalyzer;
 
         TIMING_LOG.debug("Obtaining API trees.");
-        ElementForest oldTree = oldAnalyzer.analyze();
-        ElementForest newTree = newAnalyzer.analyze();
+        ElementForest oldTree = forests.getOld();
+        ElementForest newTree = forests.getNew();
         TIMING_LOG.debug("API trees obtained");
 
         try (DifferenceAnalyzer elementDifferenceAnalyzer = apiAnalyzer.getDifferenceAnalyzer(oldAnalyzer, newAnalyzer)) {
@@ -261,9 +360,29 @@ public final class Revapi {
                 LOG.debug("New tree: {}", newTree);
             }
 
+            elementDifferenceAnalyzer.setDiscardedDifferenceCodes(transforms::isDiscardingAll);
+
+            ReportingPipeline pipeline = reportingPipeline;
+            if (pipeline != null && !elementDifferenceAnalyzer.isAsynchronousReportingSupported()) {
+                //the reporters can only look at the elements on this thread, so let them finish the reports of the
+                //previous analyzers and call them directly from now on
+                TIMING_LOG.debug("{} doesn't support asynchronous reporting. Reporting synchronously.",
+                        elementDifferenceAnalyzer);
+                pipeline.flush();
+                pipeline = null;
+            }
+
             TIMING_LOG.debug("Opening difference analyzer");
             elementDifferenceAnalyzer.open();
-            analyze(apiAnalyzer.getCorrespondenceDeducer(), elementDifferenceAnalyzer, as, bs, extensions);
+            ReportingPipeline p = pipeline;
+            analyze(apiAnalyzer.getCorrespondenceDeducer(), elementDifferenceAnalyzer, as, bs, filters,
+                    r -> transformAndReport(r, extensions, transforms, p, metrics), metrics);
+
+            if (pipeline != null) {
+                //the reported elements might not be usable once the difference analyzer is closed
+                TIMING_LOG.debug("Waiting for the reporters to catch up");
+                pipeline.flush();
+            }
             TIMING_LOG.debug("Closing difference analyzer");
         }
         TIMING_LOG.debug("Difference analyzer closed");
@@ -271,54 +390,78 @@ public final class Revapi {
 
     private void analyze(CorrespondenceComparatorDeducer deducer, DifferenceAnalyzer elementDifferenceAnalyzer,
                          SortedSet<? extends Element> as, SortedSet<? extends Element> bs,
-                         AnalysisResult.Extensions extensions) {
+                         Filters filters, Consumer<Report> reportSink, AnalysisMetrics metrics) {
 
         List<Element> sortedAs = new ArrayList<>(as);
         List<Element> sortedBs = new ArrayList<>(bs);
 
-        Stats.of("sorts").start();
+        long start = metrics.sorts.start();
         Comparator<? super Element> comp = deducer.sortAndGetCorrespondenceComparator(sortedAs, sortedBs);
-        Stats.of("sorts").end(sortedAs, sortedBs);
+        metrics.sorts.stop(start);
 
         CoIterator<Element> it = new CoIterator<>(sortedAs.iterator(), sortedBs.iterator(), comp);
 
         while (it.hasNext()) {
             it.next();
 
-            Element a = it.getLeft();
-            Element b = it.getRight();
+            analyzePair(deducer, elementDifferenceAnalyzer, it.getLeft(), it.getRight(), filters, reportSink,
+                    metrics);
+        }
+    }
 
-            Stats.of("filters").start();
-            Set<ElementFilter> filters = extensions.getFilters().keySet();
-            boolean analyzeThis =
-                    (a == null || filtersApply(a, filters)) && (b == null || filtersApply(b, filters));
-            Stats.of("filters").end(a, b);
+    private void analyzePair(CorrespondenceComparatorDeducer deducer, DifferenceAnalyzer elementDifferenceAnalyzer,
+                             Element a, Element b, Filters filters, Consumer<Report> reportSink,
+                             AnalysisMetrics metrics) {
+        metrics.elementPairsVisited.increment();
 
-            long beginDuration = 0;
-            if (analyzeThis) {
-                Stats.of("analyses").start();
-                Stats.of("analysisBegins").start();
-                elementDifferenceAnalyzer.beginAnalysis(a, b);
-                Stats.of("analysisBegins").end(a, b);
-                beginDuration = Stats.of("analyses").reset();
-            }
+        long start = metrics.filters.start();
+        boolean analyzeThis = (a == null || filters.apply(a)) && (b == null || filters.apply(b));
+        metrics.filters.stop(start);
+
+        //the cause of the durations is only needed if the metrics are collected
+        Object cause = metrics.enabled ? new AbstractMap.SimpleEntry<>(a, b) : null;
 
-            Stats.of("descends").start();
-            boolean shouldDescend = a != null && b != null && filtersDescend(a, filters) &&
-                    filtersDescend(b, filters);
-            Stats.of("descends").end(a, b);
+        //the duration of the analysis of this pair of elements, excluding the analysis of the children
+        long analysisDuration = 0;
+        if (analyzeThis) {
+            start = metrics.analysisBegins.start();
+            elementDifferenceAnalyzer.beginAnalysis(a, b);
+            analysisDuration = metrics.analysisBegins.stop(start, cause);
+        }
+
+        start = metrics.descends.start();
+        boolean shouldDescend = a != null && b != null && filters.descend(a) && filters.descend(b)
+                && elementDifferenceAnalyzer.isDescendRequired(a, b);
+        metrics.descends.stop(start);
+
+        if (shouldDescend) {
+            analyze(deducer, elementDifferenceAnalyzer, a.getChildren(), b.getChildren(), filters, reportSink,
+                    metrics);
+        }
 
-            if (shouldDescend) {
-                analyze(deducer, elementDifferenceAnalyzer, a.getChildren(), b.getChildren(), extensions);
+        if (analyzeThis) {
+            start = metrics.analysisEnds.start();
+            Report r = elementDifferenceAnalyzer.endAnalysis(a, b);
+            analysisDuration += metrics.analysisEnds.stop(start, cause);
+            metrics.analyses.record(analysisDuration, cause);
+            if (r != null) {
+                metrics.differencesProduced.add(r.getDifferences().size());
             }
+            reportSink.accept(r);
+        }
+    }
 
-            if (analyzeThis) {
-                Stats.of("analyses").start();
-                Stats.of("analysisEnds").start();
-                Report r = elementDifferenceAnalyzer.endAnalysis(a, b);
-                Stats.of("analysisEnds").end(a, b);
-                Stats.of("analyses").end(beginDuration, new AbstractMap.SimpleEntry<>(a, b));
-                transformAndReport(r, extensions);
+    private static <T> T getResult(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
             }
         }
     }
@@ -349,12 +492,13 @@ public final class Revapi {
         }
     }
 
-    private void transformAndReport(Report report, AnalysisResult.Extensions extensions) {
+    private void transformAndReport(Report report, AnalysisResult.Extensions extensions, Transforms transforms,
+                                    @Nullable ReportingPipeline reportingPipeline, AnalysisMetrics metrics) {
         if (report == null) {
             return;
         }
 
-        Stats.of("transforms").start();
+        long start = metrics.transforms.start();
 
         int iteration = 0;
         boolean listChanged;
@@ -368,7 +512,7 @@ public final class Revapi {
                 transformed.clear();
                 boolean shouldBeRemoved = false;
                 boolean differenceChanged = false;
-                for (DifferenceTransform<?> t : getTransformsForDifference(d, extensions)) {
+                for (DifferenceTransform<?> t : transforms.getTransformsForDifference(d)) {
                     // it is the responsibility of the transform to declare the proper type.
                     // it will get a ClassCastException if it fails to declare a type that is common to all differences
                     // it can handle
@@ -387,6 +531,7 @@ public final class Revapi {
 
                     // ignore if transformation returned null, meaning that it "swallowed" the difference..
                     if (td == null) {
+                        metrics.differencesSwallowed.increment();
                         shouldBeRemoved = true;
                         listChanged = true;
                         differenceChanged = true;
@@ -431,33 +576,167 @@ public final class Revapi {
             }
         } while (listChanged);
 
-        Stats.of("transforms").end(report);
+        metrics.transforms.stop(start, report);
 
         if (!report.getDifferences().isEmpty()) {
-            Stats.of("reports").start();
-            for (Reporter reporter : extensions.getReporters().keySet()) {
-                reporter.report(report);
+            metrics.differencesReported.add(report.getDifferences().size());
+            start = metrics.reports.start();
+            if (reportingPipeline == null) {
+                for (Reporter reporter : extensions.getReporters().keySet()) {
+                    reporter.report(report);
+                }
+            } else {
+                reportingPipeline.report(report);
             }
-            Stats.of("reports").end(report);
+            metrics.reports.stop(start, report);
         }
     }
 
-    private List<DifferenceTransform<?>> getTransformsForDifference(Difference diff, AnalysisResult.Extensions extensions) {
-        List<DifferenceTransform<?>> ret = matchingTransformsCache.get(diff.code);
-        if (ret == null) {
-            ret = new ArrayList<>();
-            for (DifferenceTransform<?> t : extensions.getTransforms().keySet()) {
-                for (Pattern p : t.getDifferenceCodePatterns()) {
-                    if (p.matcher(diff.code).matches()) {
-                        ret.add(t);
-                        break;
+    /**
+     * Obtains the dispatch of the differences to the initialized transforms of an analysis. The index of their
+     * difference code patterns is reused from the previous analysis if the patterns didn't change.
+     */
+    private Transforms getTransforms(AnalysisResult.Extensions extensions) {
+        List<DifferenceTransform<?>> all = new ArrayList<>(extensions.getTransforms().keySet());
+        List<Pattern[]> patterns = new ArrayList<>(all.size());
+        for (DifferenceTransform<?> t : all) {
+            patterns.add(t.getDifferenceCodePatterns());
+        }
+
+        TransformIndex index = transformIndex;
+        if (index == null || !index.isBuiltFor(patterns)) {
+            TIMING_LOG.debug("Indexing the difference code patterns of {} transforms.", all.size());
+            index = TransformIndex.build(patterns);
+            transformIndex = index;
+        }
+
+        int[] groups = new int[all.size()];
+        for (int i = 0; i < groups.length; ++i) {
+            groups[i] = index.groupOf(patterns.get(i));
+        }
+
+        return new Transforms(all, groups, index);
+    }
+
+    /**
+     * The transforms of a single analysis together with the cache of the transforms matching the difference codes
+     * encountered so far. Only used from the analyzing thread.
+     */
+    private static final class Transforms {
+        private final List<DifferenceTransform<?>> all;
+        private final int[] groups;
+        private final TransformIndex index;
+        private final Map<String, List<DifferenceTransform<?>>> matchingTransformsCache = new HashMap<>();
+
+        Transforms(List<DifferenceTransform<?>> all, int[] groups, TransformIndex index) {
+            this.all = all;
+            this.groups = groups;
+            this.index = index;
+        }
+
+        List<DifferenceTransform<?>> getTransformsForDifference(Difference diff) {
+            return getTransformsForCode(diff.code);
+        }
+
+        /**
+         * A difference is discarded if any of the transforms it is passed to discards it.
+         */
+        boolean isDiscardingAll(String code) {
+            for (DifferenceTransform<?> t : getTransformsForCode(code)) {
+                if (t.isDiscardingAll(code)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private List<DifferenceTransform<?>> getTransformsForCode(String code) {
+            List<DifferenceTransform<?>> ret = matchingTransformsCache.get(code);
+            if (ret == null) {
+                BitSet matchingGroups = index.match(code);
+                ret = new ArrayList<>();
+                if (!matchingGroups.isEmpty()) {
+                    for (int i = 0; i < groups.length; ++i) {
+                        if (groups[i] >= 0 && matchingGroups.get(groups[i])) {
+                            ret.add(all.get(i));
+                        }
                     }
                 }
+                matchingTransformsCache.put(code, ret);
             }
-            matchingTransformsCache.put(diff.code, ret);
+
+            return ret;
         }
+    }
 
-        return ret;
+    /**
+     * The archive analyzers of a single API analyzer together with the (possibly still running) construction of their
+     * element forests. If there is no executor, the forests are constructed lazily on the thread that asks for them.
+     * If there is one but it hasn't yet gotten to the construction of a forest by the time the forest is needed,
+     * the asking thread constructs the forest itself.
+     *
+     * <p>If requested, the simple element forests are frozen as part of their construction.
+     */
+    private static final class Forests {
+        final ApiAnalyzer apiAnalyzer;
+        final API oldApi;
+        final API newApi;
+        final ArchiveAnalyzer oldAnalyzer;
+        final ArchiveAnalyzer newAnalyzer;
+        private final boolean freeze;
+        private final FutureTask<ElementForest> oldForest;
+        private final FutureTask<ElementForest> newForest;
+
+        Forests(ApiAnalyzer apiAnalyzer, API oldApi, API newApi, @Nullable ExecutorService executor, boolean freeze,
+                Metrics metrics) {
+            this.apiAnalyzer = apiAnalyzer;
+            this.oldApi = oldApi;
+            this.newApi = newApi;
+            this.oldAnalyzer = apiAnalyzer.getArchiveAnalyzer(oldApi);
+            this.newAnalyzer = apiAnalyzer.getArchiveAnalyzer(newApi);
+            this.freeze = freeze;
+            this.oldForest = new FutureTask<>(() -> timedAnalyze("Old", oldAnalyzer, metrics.timer("forests.old")));
+            this.newForest = new FutureTask<>(() -> timedAnalyze("New", newAnalyzer, metrics.timer("forests.new")));
+
+            if (executor != null) {
+                executor.execute(oldForest);
+                executor.execute(newForest);
+            }
+        }
+
+        ElementForest getOld() throws Exception {
+            return get(oldForest);
+        }
+
+        ElementForest getNew() throws Exception {
+            return get(newForest);
+        }
+
+        void cancel() {
+            oldForest.cancel(true);
+            newForest.cancel(true);
+        }
+
+        private ElementForest timedAnalyze(String side, ArchiveAnalyzer analyzer, Metrics.Timer timer) {
+            long start = System.nanoTime();
+            ElementForest ret = analyzer.analyze();
+            if (freeze && ret instanceof SimpleElementForest) {
+                ((SimpleElementForest) ret).freeze();
+            }
+            timer.record(System.nanoTime() - start, apiAnalyzer);
+            if (TIMING_LOG.isDebugEnabled()) {
+                TIMING_LOG.debug("{} API tree of {} obtained in {}ms on thread {}", side, apiAnalyzer,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), Thread.currentThread().getName());
+            }
+            return ret;
+        }
+
+        private static ElementForest get(FutureTask<ElementForest> forest) throws Exception {
+            //this is a noop if the task has already been started by the executor
+            forest.run();
+            return getResult(forest);
+        }
     }
 
     public static final class Builder {
@@ -465,6 +744,11 @@ public final class Revapi {
         private Set<Class<? extends Reporter>> reporters = null;
         private Set<Class<? extends DifferenceTransform<?>>> transforms = null;
         private Set<Class<? extends ElementFilter>> filters = null;
+        private ExecutorService forestConstructionExecutor;
+        private int forestConstructionThreads = -1;
+        private int reportingQueueCapacity = 0;
+        private Boolean collectMetrics;
+        private boolean freezeForests;
 
         @Nonnull
         public Builder withAnalyzersFromThreadContextClassLoader() {
@@ -594,6 +878,106 @@ public final class Revapi {
             return this;
         }
 
+        /**
+         * Makes Revapi construct the element forests of the old and new API concurrently, using a thread pool with
+         * the provided number of threads created for each analysis. By default, the forests are constructed serially.
+         *
+         * <p>The construction of the forests of all the API analyzers is started at the beginning of the analysis,
+         * so with more than 2 threads, the forests of the subsequent API analyzers are constructed while the forests
+         * of the previous ones are being compared. This speeds up the analysis at the cost of keeping more forests in
+         * memory at the same time.
+         *
+         * @param threads the number of threads or 0 to use 2 threads per API analyzer
+         * @return this builder
+         * @since 0.8.5
+         */
+        @Nonnull
+        public Builder withForestConstructionThreads(int threads) {
+            if (threads < 0) {
+                throw new IllegalArgumentException("The number of forest construction threads cannot be negative.");
+            }
+            this.forestConstructionThreads = threads;
+            return this;
+        }
+
+        /**
+         * Similar to {@link #withForestConstructionThreads(int)} but uses the provided executor to construct the
+         * element forests concurrently. The executor is not shut down by Revapi.
+         *
+         * @param executor the executor to construct the forests with
+         * @return this builder
+         * @since 0.8.5
+         */
+        @Nonnull
+        public Builder withForestConstructionExecutor(@Nonnull ExecutorService executor) {
+            this.forestConstructionExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Makes the reporting asynchronous. Each reporter gets its own thread and a queue of reports with the provided
+         * capacity. The reports are put into the queues as soon as they are transformed, so that a slow reporter
+         * doesn't stall the analysis until its queue fills up.
+         *
+         * <p>Each reporter receives the reports in the same order as it would with the synchronous reporting. All the
+         * reports are delivered before the difference analyzer that produced them is closed and at the latest when
+         * the {@link AnalysisResult} is closed. A failure of a reporter is rethrown from
+         * {@link AnalysisResult#close()}.
+         *
+         * <p>The reports of the difference analyzers that don't
+         * {@link DifferenceAnalyzer#isAsynchronousReportingSupported() support} the asynchronous reporting are still
+         * delivered synchronously. That is the case of the difference analyzer of the Java extension, so this has no
+         * effect on the analysis of Java archives. It only helps with the API analyzers whose reported elements can be
+         * used from other threads.
+         *
+         * @param queueCapacity the maximum number of reports waiting for each reporter
+         * @return this builder
+         * @since 0.8.5
+         */
+        @Nonnull
+        public Builder withAsynchronousReporting(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("The reporting queue capacity must be at least 1.");
+            }
+            this.reportingQueueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Enables or disables the collection of the {@link Metrics} during the analysis. If not set explicitly, the
+         * metrics are only collected if the debug level of the {@code revapi.analysis.timing} logger is enabled.
+         *
+         * @param collectMetrics whether to collect the metrics
+         * @return this builder
+         * @see AnalysisResult#getMetrics()
+         * @since 0.8.5
+         */
+        @Nonnull
+        public Builder withMetrics(boolean collectMetrics) {
+            this.collectMetrics = collectMetrics;
+            return this;
+        }
+
+        /**
+         * Makes Revapi {@link SimpleElementForest#freeze() freeze} the element forests that are
+         * {@link SimpleElementForest}s as soon as they are constructed. The children of the frozen elements are stored
+         * in compact, array-backed sorted sets, which lowers the memory usage and speeds up their iteration during
+         * the analysis. By default, the forests are not frozen.
+         *
+         * <p>The API analyzers that modify their forests after they have been returned from
+         * {@link ArchiveAnalyzer#analyze()} must make sure their {@link SimpleElementForest#getRoots()} only returns
+         * once the forest is complete.
+         *
+         * @param freezeForests whether to freeze the forests
+         * @return this builder
+         * @since 0.8.5
+         */
+        @Nonnull
+        public Builder withFrozenForests(boolean freezeForests) {
+            this.freezeForests = freezeForests;
+            return this;
+        }
+
         @Nonnull
         public Builder withAllExtensionsFromThreadContextClassLoader() {
             return withAllExtensionsFrom(Thread.currentThread().getContextClassLoader());
@@ -627,39 +1011,99 @@ public final class Revapi {
                                 " a reporter.");
             }
 
-            return new Revapi(analyzers, reporters, transforms, filters);
+            return new Revapi(analyzers, reporters, transforms, filters, forestConstructionExecutor,
+                    forestConstructionThreads, reportingQueueCapacity, collectMetrics, freezeForests);
         }
     }
 
-    private static boolean filtersApply(Element element, Iterable<? extends ElementFilter> filters) {
-        for (ElementFilter f : filters) {
-            String name = f.getClass().getName() + ".applies";
-            Stats.of(name).start();
-            boolean applies = f.applies(element);
-            Stats.of(name).end(element);
-            if (!applies) {
-                return false;
-            }
+    /**
+     * The timers and counters of the analysis of the element pairs and of the transformation and reporting of their
+     * reports. They are resolved just once per analysis so that they don't need to be looked up by name for every
+     * analyzed element. Safe to use from several threads.
+     */
+    private static final class AnalysisMetrics {
+        final boolean enabled;
+        final Metrics.Counter elementPairsVisited;
+        final Metrics.Counter differencesProduced;
+        final Metrics.Counter differencesSwallowed;
+        final Metrics.Counter differencesReported;
+        final Metrics.Timer sorts;
+        final Metrics.Timer filters;
+        final Metrics.Timer analysisBegins;
+        final Metrics.Timer descends;
+        final Metrics.Timer analysisEnds;
+        final Metrics.Timer analyses;
+        final Metrics.Timer transforms;
+        final Metrics.Timer reports;
+
+        AnalysisMetrics(Metrics metrics) {
+            enabled = metrics.isEnabled();
+            elementPairsVisited = metrics.counter("elementPairsVisited");
+            differencesProduced = metrics.counter("differencesProduced");
+            differencesSwallowed = metrics.counter("differencesSwallowed");
+            differencesReported = metrics.counter("differencesReported");
+            sorts = metrics.timer("sorts");
+            filters = metrics.timer("filters");
+            analysisBegins = metrics.timer("analysisBegins");
+            descends = metrics.timer("descends");
+            analysisEnds = metrics.timer("analysisEnds");
+            analyses = metrics.timer("analyses");
+            transforms = metrics.timer("transforms");
+            reports = metrics.timer("reports");
         }
-        return true;
     }
 
-    private static boolean filtersDescend(Element element, Iterable<? extends ElementFilter> filters) {
-        Iterator<? extends ElementFilter> it = filters.iterator();
-        boolean hasNoFilters = !it.hasNext();
+    /**
+     * The element filters of a single analysis together with their timers. The timers are resolved just once so that
+     * their names don't need to be composed for every analyzed element. Safe to use from several threads provided the
+     * filters are.
+     */
+    private static final class Filters {
+        private final ElementFilter[] filters;
+        private final Metrics.Timer[] appliesTimers;
+        private final Metrics.Timer[] descendTimers;
+
+        Filters(Collection<ElementFilter> filters, Metrics metrics) {
+            this.filters = filters.toArray(new ElementFilter[filters.size()]);
+            this.appliesTimers = new Metrics.Timer[this.filters.length];
+            this.descendTimers = new Metrics.Timer[this.filters.length];
+
+            for (int i = 0; i < this.filters.length; ++i) {
+                String name = this.filters[i].getClass().getName();
+                appliesTimers[i] = metrics.timer(name + ".applies");
+                descendTimers[i] = metrics.timer(name + ".shouldDescendInto");
+            }
+        }
 
-        while (it.hasNext()) {
-            ElementFilter f = it.next();
-            String name = f.getClass().getName() + ".shouldDescendInto";
-            Stats.of(name).start();
-            boolean should = f.shouldDescendInto(element);
-            Stats.of(name).end(element);
-            if (should) {
-                return true;
+        boolean apply(Element element) {
+            for (int i = 0; i < filters.length; ++i) {
+                Metrics.Timer timer = appliesTimers[i];
+                long start = timer.start();
+                boolean applies = filters[i].applies(element);
+                timer.stop(start, element);
+                if (!applies) {
+                    return false;
+                }
             }
+            return true;
         }
 
-        return hasNoFilters;
-    }
+        boolean descend(Element element) {
+            if (filters.length == 0) {
+                return true;
+            }
+
+            for (int i = 0; i < filters.length; ++i) {
+                Metrics.Timer timer = descendTimers[i];
+                long start = timer.start();
+                boolean should = filters[i].shouldDescendInto(element);
+                timer.stop(start, element);
+                if (should) {
+                    return true;
+                }
+            }
 
+            return false;
+        }
+    }
 }
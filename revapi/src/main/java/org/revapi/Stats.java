@@ -26,7 +26,10 @@ import java.util.stream.Collectors;
  *
  * @author Lukas Krejci
  * @since 0.4.1
+ * @deprecated Revapi no longer collects these statistics. Use the {@link Metrics} obtained from
+ * {@link AnalysisContext#getMetrics()} which are thread-safe and scoped to a single analysis.
  */
+@Deprecated
 public final class Stats {
     private static final Map<String, Collector> COLLECTORS = new TreeMap<>();
 
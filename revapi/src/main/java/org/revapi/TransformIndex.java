@@ -0,0 +1,341 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An index of the difference code patterns of difference transforms. The transforms are grouped by their patterns and
+ * given a difference code, the index finds the groups that have at least one pattern matching the code.
+ *
+ * <p>The patterns that are just a literal code (like the ones the ignore transform creates for each ignored
+ * difference) are looked up in a hash table, the patterns in the form of a literal followed by {@code .*} are looked up
+ * in a prefix trie and the rest of the patterns are combined into a single regex that is used to quickly rule out the
+ * codes that none of them match.
+ *
+ * <p>The index only depends on the patterns, not on the transform instances, so it can be reused for any analysis
+ * whose transforms have the same set of patterns.
+ *
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+final class TransformIndex {
+    private static final String LINE_TERMINATORS = "\n\r\u0085\u2028\u2029";
+    private static final String METACHARS = ".[]{}()*+?^$|";
+    private static final Pattern BACK_REFERENCE = Pattern.compile(".*\\\\(\\d|k<).*", Pattern.DOTALL);
+
+    private final List<List<String>> groups;
+    private final Map<List<String>, Integer> groupIndices = new HashMap<>();
+    private final Map<String, BitSet> exact = new HashMap<>();
+    private final Node prefixes = new Node();
+    private final List<Regex> combinable = new ArrayList<>();
+    private final List<Regex> standalone = new ArrayList<>();
+    private final Pattern combined;
+
+    private TransformIndex(List<Pattern[]> patterns) {
+        Map<List<String>, Pattern[]> distinct = new HashMap<>();
+        for (Pattern[] ps : patterns) {
+            distinct.putIfAbsent(keyOf(ps), ps);
+        }
+
+        this.groups = sortedGroups(distinct.keySet());
+
+        for (int i = 0; i < groups.size(); ++i) {
+            List<String> group = groups.get(i);
+            groupIndices.put(group, i);
+            for (Pattern p : distinct.get(group)) {
+                add(i, p);
+            }
+        }
+
+        Pattern c = null;
+        if (!combinable.isEmpty()) {
+            StringBuilder bld = new StringBuilder();
+            for (Regex r : combinable) {
+                if (bld.length() > 0) {
+                    bld.append('|');
+                }
+                bld.append("(?:").append(r.pattern.pattern()).append(')');
+            }
+
+            try {
+                c = Pattern.compile(bld.toString());
+            } catch (PatternSyntaxException e) {
+                //e.g. the same named group in more patterns - just check each of them individually
+                standalone.addAll(combinable);
+                combinable.clear();
+            }
+        }
+        this.combined = c;
+    }
+
+    /**
+     * @param patterns the difference code patterns of each of the transforms
+     * @return the index of the patterns
+     */
+    static TransformIndex build(@Nonnull List<Pattern[]> patterns) {
+        return new TransformIndex(patterns);
+    }
+
+    /**
+     * @param patterns the difference code patterns of each of the transforms
+     * @return true if this index was built for the same set of patterns and therefore can be used for them
+     */
+    boolean isBuiltFor(@Nonnull List<Pattern[]> patterns) {
+        Set<List<String>> keys = new HashSet<>();
+        for (Pattern[] ps : patterns) {
+            keys.add(keyOf(ps));
+        }
+
+        return groups.equals(sortedGroups(keys));
+    }
+
+    /**
+     * @param patterns the difference code patterns of a transform
+     * @return the group of the transform, as used in the result of {@link #match(String)}, or -1 if the index was not
+     * built for these patterns
+     */
+    int groupOf(@Nonnull Pattern[] patterns) {
+        Integer ret = groupIndices.get(keyOf(patterns));
+        return ret == null ? -1 : ret;
+    }
+
+    /**
+     * @param code the difference code
+     * @return the groups with at least one pattern matching the code
+     */
+    @Nonnull
+    BitSet match(@Nonnull String code) {
+        BitSet ret = new BitSet();
+
+        BitSet exactMatches = exact.get(code);
+        if (exactMatches != null) {
+            ret.or(exactMatches);
+        }
+
+        prefixes.collect(code, lastLineTerminator(code), ret);
+
+        if (combined != null && combined.matcher(code).matches()) {
+            matchIndividually(combinable, code, ret);
+        }
+
+        matchIndividually(standalone, code, ret);
+
+        return ret;
+    }
+
+    private void add(int group, Pattern pattern) {
+        String regex = pattern.pattern();
+
+        if (pattern.flags() == 0) {
+            int start = 0;
+            int end = regex.length();
+
+            if (end > 0 && regex.charAt(0) == '^') {
+                start++;
+            }
+
+            if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+                end--;
+            }
+
+            boolean prefix = false;
+            if (end - start >= 2 && regex.startsWith(".*", end - 2) && !isEscaped(regex, end - 2)) {
+                prefix = true;
+                end -= 2;
+            }
+
+            String literal = unquote(regex, start, end);
+            if (literal != null) {
+                if (prefix) {
+                    prefixes.add(literal, group);
+                } else {
+                    exact.computeIfAbsent(literal, k -> new BitSet()).set(group);
+                }
+                return;
+            }
+        }
+
+        Regex r = new Regex(group, pattern);
+        if (pattern.flags() == 0 && !BACK_REFERENCE.matcher(regex).matches()) {
+            combinable.add(r);
+        } else {
+            standalone.add(r);
+        }
+    }
+
+    private static void matchIndividually(List<Regex> regexes, String code, BitSet result) {
+        for (Regex r : regexes) {
+            if (!result.get(r.group) && r.pattern.matcher(code).matches()) {
+                result.set(r.group);
+            }
+        }
+    }
+
+    private static List<String> keyOf(Pattern[] patterns) {
+        String[] ret = new String[patterns.length];
+        for (int i = 0; i < patterns.length; ++i) {
+            ret[i] = patterns[i].flags() + ":" + patterns[i].pattern();
+        }
+        return Arrays.asList(ret);
+    }
+
+    /**
+     * The groups are sorted so that the same set of patterns always produces the same index regardless of the order
+     * in which the transforms were instantiated.
+     */
+    private static List<List<String>> sortedGroups(Collection<List<String>> keys) {
+        List<List<String>> ret = new ArrayList<>(keys);
+        ret.sort((a, b) -> {
+            int sizeDiff = a.size() - b.size();
+            if (sizeDiff != 0) {
+                return sizeDiff;
+            }
+
+            for (int i = 0; i < a.size(); ++i) {
+                int diff = a.get(i).compareTo(b.get(i));
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+
+            return 0;
+        });
+        return ret;
+    }
+
+    private static boolean isEscaped(String regex, int idx) {
+        int backslashes = 0;
+        while (idx > 0 && regex.charAt(--idx) == '\\') {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    /**
+     * @return the literal string the regex between the given indices matches or null if it is not a literal
+     */
+    private static String unquote(String regex, int start, int end) {
+        StringBuilder bld = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= end) {
+                    return null;
+                }
+
+                char n = regex.charAt(i + 1);
+                if (n == 'Q') {
+                    int quoteEnd = regex.indexOf("\\E", i + 2);
+                    if (quoteEnd < 0 || quoteEnd + 2 > end) {
+                        return null;
+                    }
+                    bld.append(regex, i + 2, quoteEnd);
+                    i = quoteEnd + 2;
+                } else if (Character.isLetterOrDigit(n)) {
+                    //character classes, back references and the like
+                    return null;
+                } else {
+                    bld.append(n);
+                    i += 2;
+                }
+            } else if (METACHARS.indexOf(c) >= 0) {
+                return null;
+            } else {
+                bld.append(c);
+                i++;
+            }
+        }
+
+        return bld.toString();
+    }
+
+    private static int lastLineTerminator(String code) {
+        for (int i = code.length() - 1; i >= 0; --i) {
+            if (LINE_TERMINATORS.indexOf(code.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Regex {
+        final int group;
+        final Pattern pattern;
+
+        Regex(int group, Pattern pattern) {
+            this.group = group;
+            this.pattern = pattern;
+        }
+    }
+
+    private static final class Node {
+        private Map<Character, Node> children;
+        private BitSet groups;
+
+        void add(String prefix, int group) {
+            Node n = this;
+            for (int i = 0; i < prefix.length(); ++i) {
+                if (n.children == null) {
+                    n.children = new HashMap<>(4);
+                }
+                n = n.children.computeIfAbsent(prefix.charAt(i), k -> new Node());
+            }
+
+            if (n.groups == null) {
+                n.groups = new BitSet();
+            }
+            n.groups.set(group);
+        }
+
+        /**
+         * Collects the groups of all the prefixes of the code. Because {@code .*} doesn't match line terminators,
+         * only the prefixes that include the last line terminator in the code match.
+         */
+        void collect(String code, int lastLineTerminator, BitSet result) {
+            Node n = this;
+            int depth = 0;
+            while (true) {
+                if (n.groups != null && depth > lastLineTerminator) {
+                    result.or(n.groups);
+                }
+
+                if (depth == code.length() || n.children == null) {
+                    return;
+                }
+
+                n = n.children.get(code.charAt(depth++));
+                if (n == null) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -32,7 +32,7 @@ import org.revapi.Archive;
  * @author Lukas Krejci
  * @since 0.4.1
  */
-public class FileArchive implements Archive {
+public class FileArchive implements Archive.FileBacked {
     private final File file;
 
     public FileArchive(File file) {
@@ -48,4 +48,9 @@ public class FileArchive implements Archive {
     public @Nonnull InputStream openStream() throws IOException {
         return new FileInputStream(file);
     }
+
+    @Override
+    public @Nonnull File getFile() {
+        return file;
+    }
 }
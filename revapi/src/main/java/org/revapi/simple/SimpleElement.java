@@ -253,6 +253,28 @@ public abstract class SimpleElement implements Element {
         return children;
     }
 
+    /**
+     * Replaces the children of this element and, recursively, of all its descendants with compact, array-backed sorted
+     * sets that are cheaper to store and iterate over. The children are kept in the same order.
+     *
+     * <p>This is only meant to be called once the element tree is complete. The sets returned from
+     * {@link #getChildren()} of a frozen element are unmodifiable.
+     *
+     * @since 0.8.5
+     */
+    public void freeze() {
+        SortedSet<Element> current = children == null ? newChildrenInstance() : children;
+
+        //an empty set is shared by all the leaves
+        children = SortedArraySet.copyOf(current);
+
+        for (Element e : children) {
+            if (e instanceof SimpleElement) {
+                ((SimpleElement) e).freeze();
+            }
+        }
+    }
+
     /**
      * Override this method if you need some specialized instance of sorted set or want to do some custom pre-populating
      * or initialization of the children. This default implementation merely returns an empty new
@@ -88,6 +88,25 @@ public class SimpleElementForest implements ElementForest {
         }
     }
 
+    /**
+     * Freezes the roots and all the elements in the forest, see {@link SimpleElement#freeze()}. This is only meant to
+     * be called once the forest is complete. The roots are obtained using {@link #getRoots()}, so the subclasses that
+     * construct the forest asynchronously can make sure it is complete there.
+     *
+     * @since 0.8.5
+     */
+    public void freeze() {
+        roots = freeze(getRoots());
+    }
+
+    private static <E extends SimpleElement> SortedSet<E> freeze(SortedSet<E> roots) {
+        for (SimpleElement e : roots) {
+            e.freeze();
+        }
+
+        return SortedArraySet.copyOf(roots);
+    }
+
     @Override
     public String toString() {
         StringBuilder bld = new StringBuilder(getClass().getSimpleName());
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi.simple;
+
+import java.lang.reflect.Array;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An unmodifiable sorted set backed by a sorted array. This is used to store the children of the frozen elements,
+ * because it is much more compact than a {@link java.util.TreeSet} and cheaper to iterate over.
+ *
+ * <p>The range views share the array with the set they were obtained from.
+ *
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+final class SortedArraySet<E> extends AbstractSet<E> implements SortedSet<E> {
+    private static final SortedArraySet<?> EMPTY = new SortedArraySet<>(new Object[0], 0, 0, null);
+
+    private final Object[] elements;
+    private final int from;
+    private final int to;
+    private final Comparator<? super E> comparator;
+
+    private SortedArraySet(Object[] elements, int from, int to, @Nullable Comparator<? super E> comparator) {
+        this.elements = elements;
+        this.from = from;
+        this.to = to;
+        this.comparator = comparator;
+    }
+
+    /**
+     * @param set the set to copy
+     * @return an unmodifiable copy of the set with the same order
+     */
+    @SuppressWarnings("unchecked")
+    static <E> SortedArraySet<E> copyOf(@Nonnull SortedSet<E> set) {
+        if (set instanceof SortedArraySet) {
+            return (SortedArraySet<E>) set;
+        }
+
+        if (set.isEmpty() && set.comparator() == null) {
+            return (SortedArraySet<E>) EMPTY;
+        }
+
+        Object[] elements = set.toArray();
+        return new SortedArraySet<>(elements, 0, elements.length, set.comparator());
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return to == from;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        @SuppressWarnings("unchecked")
+        E e = (E) o;
+        int idx = lowerBound(e);
+        return idx < to && compare(element(idx), e) == 0;
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public E next() {
+                if (next >= to) {
+                    throw new NoSuchElementException();
+                }
+                return element(next++);
+            }
+        };
+    }
+
+    @Nonnull
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOfRange(elements, from, to, Object[].class);
+    }
+
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(@Nonnull T[] a) {
+        int size = size();
+        if (a.length < size) {
+            a = (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+
+        System.arraycopy(elements, from, a, 0, size);
+
+        if (a.length > size) {
+            a[size] = null;
+        }
+
+        return a;
+    }
+
+    @Override
+    public boolean add(E e) {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("The set is frozen.");
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Nonnull
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+
+        return range(lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    @Nonnull
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return range(from, lowerBound(toElement));
+    }
+
+    @Nonnull
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return range(lowerBound(fromElement), to);
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return element(from);
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return element(to - 1);
+    }
+
+    private SortedArraySet<E> range(int from, int to) {
+        return new SortedArraySet<>(elements, from, to, comparator);
+    }
+
+    /**
+     * @return the index of the first element that is not less than the provided one
+     */
+    private int lowerBound(E e) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(element(mid), e) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E element(int idx) {
+        return (E) elements[idx];
+    }
+}
@@ -20,8 +20,17 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
@@ -51,6 +60,136 @@ public class AnalysisTest {
             Assert.assertTrue(res.isSuccess());
         }
     }
+
+    @Test
+    public void testConcurrentForestConstruction() throws Exception {
+        List<String> serial = analyzeTree(Revapi.builder());
+        List<String> concurrent = analyzeTree(Revapi.builder().withForestConstructionThreads(0));
+
+        Assert.assertEquals(serial, concurrent);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            concurrent = analyzeTree(Revapi.builder().withForestConstructionExecutor(executor));
+            Assert.assertEquals(serial, concurrent);
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFrozenForests() throws Exception {
+        List<String> mutable = analyzeTree(Revapi.builder());
+        List<String> frozen = analyzeTree(Revapi.builder().withFrozenForests(true));
+
+        Assert.assertEquals(mutable, frozen);
+    }
+
+    @Test
+    public void testAsynchronousReporting() throws Exception {
+        List<String> sync = analyzeTree(Revapi.builder());
+        List<String> async = analyzeTree(Revapi.builder().withAsynchronousReporting(2));
+
+        Assert.assertEquals(sync, async);
+    }
+
+    @Test
+    public void testAsynchronousReporterFailureFailsAnalysis() throws Exception {
+        Revapi r = Revapi.builder().withAnalyzers(TreeAnalyzer.class).withReporters(FailingReporter.class)
+                .withAsynchronousReporting(1).build();
+
+        AnalysisContext ctx = AnalysisContext.builder(r).withNewAPI(API.of().build()).withOldAPI(API.of().build())
+                .build();
+
+        AnalysisResult res = r.analyze(ctx);
+        Assert.assertFalse(res.isSuccess());
+        Assert.assertTrue(res.getFailure() instanceof IllegalStateException);
+        Assert.assertEquals("failed", res.getFailure().getMessage());
+
+        //the failure is not thrown again
+        res.close();
+    }
+
+    @Test
+    public void testFailuresOfSeveralAsynchronousReportersAreThrownOnce() throws Exception {
+        Revapi r = Revapi.builder().withAnalyzers(TreeAnalyzer.class)
+                .withReporters(FailingReporter.class, OtherFailingReporter.class).withAsynchronousReporting(1).build();
+
+        AnalysisContext ctx = AnalysisContext.builder(r).withNewAPI(API.of().build()).withOldAPI(API.of().build())
+                .build();
+
+        AnalysisResult res = r.analyze(ctx);
+        Assert.assertFalse(res.isSuccess());
+
+        Set<String> messages = new HashSet<>();
+        messages.add(res.getFailure().getMessage());
+        for (Throwable t : res.getFailure().getSuppressed()) {
+            messages.add(t.getMessage());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("failed", "failed too")), messages);
+
+        //none of the failures is thrown or added to the other again
+        res.close();
+        Assert.assertEquals(1, res.getFailure().getSuppressed().length);
+    }
+
+    @Test
+    public void testMetricsCollected() throws Exception {
+        Revapi r = Revapi.builder().withAnalyzers(TreeAnalyzer.class).withReporters(CollectingReporter.class)
+                .withMetrics(true).build();
+
+        AnalysisContext ctx = AnalysisContext.builder(r).withNewAPI(API.of().build()).withOldAPI(API.of().build())
+                .build();
+
+        try (AnalysisResult res = r.analyze(ctx)) {
+            Metrics.Snapshot metrics = res.getMetrics();
+            long pairs = TreeArchiveAnalyzer.ROOTS * (TreeArchiveAnalyzer.CHILDREN + 1);
+
+            Assert.assertEquals(pairs, (long) metrics.getCounters().get("elementPairsVisited"));
+            Assert.assertEquals(pairs, (long) metrics.getCounters().get("differencesProduced"));
+            Assert.assertEquals(pairs, (long) metrics.getCounters().get("differencesReported"));
+            Assert.assertEquals(pairs, metrics.getTimers().get("analyses").getCount());
+            Assert.assertEquals(1, metrics.getTimers().get("forests.old").getCount());
+            Assert.assertEquals(1, metrics.getTimers().get("forests.new").getCount());
+        }
+    }
+
+    @Test
+    public void testDifferenceAnalyzerCanSkipChildren() throws Exception {
+        TreeDifferenceAnalyzer.SKIP_CHILDREN = true;
+        try {
+            List<String> reported = analyzeTree(Revapi.builder());
+            Assert.assertEquals(TreeArchiveAnalyzer.ROOTS, reported.size());
+        } finally {
+            TreeDifferenceAnalyzer.SKIP_CHILDREN = false;
+        }
+    }
+
+    @Test
+    public void testDiscardedDifferenceCodesPassedToDifferenceAnalyzer() throws Exception {
+        TreeDifferenceAnalyzer.DISCARDED_CODES.clear();
+
+        List<String> reported = analyzeTree(Revapi.builder().withTransforms(DiscardingDifferenceTransform.class));
+
+        Assert.assertTrue(reported.isEmpty());
+        Assert.assertEquals(Collections.singletonList("code"), TreeDifferenceAnalyzer.DISCARDED_CODES);
+    }
+
+    private List<String> analyzeTree(Revapi.Builder builder) throws Exception {
+        Revapi r = builder.withAnalyzers(TreeAnalyzer.class).withReporters(CollectingReporter.class).build();
+
+        AnalysisContext ctx = AnalysisContext.builder(r).withNewAPI(API.of().build()).withOldAPI(API.of().build())
+                .build();
+
+        CollectingReporter.REPORTED.clear();
+        try (AnalysisResult res = r.analyze(ctx)) {
+            Assert.assertTrue(res.isSuccess());
+        }
+
+        return new ArrayList<>(CollectingReporter.REPORTED);
+    }
+
     public static final class CloningDifferenceTransform implements DifferenceTransform<Element> {
 
         @Override
@@ -83,6 +222,42 @@ public class AnalysisTest {
         }
     }
 
+    public static final class DiscardingDifferenceTransform implements DifferenceTransform<Element> {
+
+        @Override
+        public @Nonnull Pattern[] getDifferenceCodePatterns() {
+            return new Pattern[]{Pattern.compile("code")};
+        }
+
+        @Override
+        public @Nullable Difference transform(@Nullable Element oldElement, @Nullable Element newElement, @Nonnull Difference d) {
+            return null;
+        }
+
+        @Override
+        public boolean isDiscardingAll(@Nonnull String code) {
+            return true;
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+
+        @Override
+        public @Nullable String getExtensionId() {
+            return null;
+        }
+
+        @Override
+        public @Nullable Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
+
     public static final class DummyElement extends SimpleElement {
 
         private final API api;
@@ -243,4 +418,221 @@ public class AnalysisTest {
         public void initialize(@Nonnull AnalysisContext analysisContext) {
         }
     }
+
+    public static final class NamedElement extends SimpleElement {
+        private final API api;
+        private final String name;
+
+        NamedElement(API api, String name) {
+            this.api = api;
+            this.name = name;
+        }
+
+        @Override
+        public @Nonnull API getApi() {
+            return api;
+        }
+
+        @Override
+        public @Nullable Archive getArchive() {
+            return null;
+        }
+
+        @Override
+        public int compareTo(Element o) {
+            return name.compareTo(((NamedElement) o).name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final class TreeAnalyzer implements ApiAnalyzer {
+
+        @Override
+        public @Nonnull CorrespondenceComparatorDeducer getCorrespondenceDeducer() {
+            return CorrespondenceComparatorDeducer.naturalOrder();
+        }
+
+        @Override
+        public @Nonnull ArchiveAnalyzer getArchiveAnalyzer(@Nonnull API api) {
+            return new TreeArchiveAnalyzer(api);
+        }
+
+        @Override
+        public @Nonnull DifferenceAnalyzer getDifferenceAnalyzer(@Nonnull ArchiveAnalyzer oldArchive,
+                                                                 @Nonnull ArchiveAnalyzer newArchive) {
+            return new TreeDifferenceAnalyzer();
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+
+        @Override
+        public @Nullable String getExtensionId() {
+            return null;
+        }
+
+        @Override
+        public @Nullable Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
+
+    public static final class TreeArchiveAnalyzer implements ArchiveAnalyzer {
+        static final int ROOTS = 50;
+        static final int CHILDREN = 3;
+
+        private final API api;
+
+        private TreeArchiveAnalyzer(API api) {
+            this.api = api;
+        }
+
+        @Override
+        public @Nonnull ElementForest analyze() {
+            SimpleElementForest ret = new SimpleElementForest(api) {};
+            @SuppressWarnings("unchecked")
+            SortedSet<Element> roots = (SortedSet<Element>) (SortedSet<?>) ret.getRoots();
+            for (int i = 0; i < ROOTS; ++i) {
+                NamedElement root = new NamedElement(api, String.format("r%02d", i));
+                @SuppressWarnings("unchecked")
+                SortedSet<Element> children = (SortedSet<Element>) root.getChildren();
+                for (int j = 0; j < CHILDREN; ++j) {
+                    children.add(new NamedElement(api, root + ".c" + j));
+                }
+                roots.add(root);
+            }
+            return ret;
+        }
+    }
+
+    public static final class TreeDifferenceAnalyzer implements DifferenceAnalyzer {
+        static volatile boolean SKIP_CHILDREN;
+        static final List<String> DISCARDED_CODES = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void setDiscardedDifferenceCodes(@Nonnull Predicate<String> discarded) {
+            for (String code : Arrays.asList("code", "other")) {
+                if (discarded.test(code)) {
+                    DISCARDED_CODES.add(code);
+                }
+            }
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void beginAnalysis(@Nullable Element oldElement, @Nullable Element newElement) {
+        }
+
+        @Override
+        public Report endAnalysis(@Nullable Element oldElement, @Nullable Element newElement) {
+            return Report.builder().withOld(oldElement).withNew(newElement).addProblem().withCode("code").done()
+                    .build();
+        }
+
+        @Override
+        public boolean isDescendRequired(@Nonnull Element oldElement, @Nonnull Element newElement) {
+            return !SKIP_CHILDREN;
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+    }
+
+    public static final class CollectingReporter implements Reporter {
+        static final List<String> REPORTED = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void report(@Nonnull Report report) {
+            REPORTED.add(String.valueOf(report.getOldElement()));
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+
+        @Nullable
+        @Override
+        public String getExtensionId() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
+
+    public static final class FailingReporter implements Reporter {
+
+        @Override
+        public void report(@Nonnull Report report) {
+            throw new IllegalStateException("failed");
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+
+        @Nullable
+        @Override
+        public String getExtensionId() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
+
+    public static final class OtherFailingReporter implements Reporter {
+
+        @Override
+        public void report(@Nonnull Report report) {
+            throw new IllegalStateException("failed too");
+        }
+
+        @Override
+        public void close() throws Exception {
+        }
+
+        @Nullable
+        @Override
+        public String getExtensionId() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Reader getJSONSchema() {
+            return null;
+        }
+
+        @Override
+        public void initialize(@Nonnull AnalysisContext analysisContext) {
+        }
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+public class MetricsTest {
+
+    @Test
+    public void testTimerRecordsDurations() {
+        Metrics metrics = new Metrics(true);
+
+        Metrics.Timer timer = metrics.timer("timer");
+        timer.record(1, "a");
+        timer.record(100, "b");
+        timer.record(3, "c");
+
+        Metrics.TimerSnapshot snapshot = metrics.snapshot().getTimers().get("timer");
+
+        Assert.assertEquals(3, snapshot.getCount());
+        Assert.assertEquals(104, snapshot.getTotalNanos());
+        Assert.assertEquals(100, snapshot.getMaxNanos());
+        Assert.assertEquals("b", snapshot.getWorstOffender());
+        Assert.assertEquals(1, snapshot.getHistogram()[1]);
+        Assert.assertEquals(1, snapshot.getHistogram()[2]);
+        Assert.assertEquals(1, snapshot.getHistogram()[7]);
+        Assert.assertEquals(3, snapshot.getPercentileNanos(50));
+        Assert.assertEquals(100, snapshot.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testNestedTimers() {
+        Metrics metrics = new Metrics(true);
+
+        Metrics.Timer timer = metrics.timer("timer");
+        long outer = timer.start();
+        long inner = timer.start();
+        long innerDuration = timer.stop(inner);
+        long outerDuration = timer.stop(outer);
+
+        Assert.assertTrue(outerDuration >= innerDuration);
+        Assert.assertEquals(2, metrics.snapshot().getTimers().get("timer").getCount());
+    }
+
+    @Test
+    public void testConcurrentCounting() throws Exception {
+        Metrics metrics = new Metrics(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; ++i) {
+            executor.execute(() -> {
+                for (int j = 0; j < 1000; ++j) {
+                    metrics.counter("counter").increment();
+                    metrics.timer("timer").record(j, null);
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Metrics.Snapshot snapshot = metrics.snapshot();
+        Assert.assertEquals(4000L, (long) snapshot.getCounters().get("counter"));
+        Assert.assertEquals(4000L, snapshot.getTimers().get("timer").getCount());
+    }
+
+    @Test
+    public void testDisabledMetricsCollectNothing() {
+        Metrics metrics = Metrics.disabled();
+
+        metrics.counter("counter").increment();
+        metrics.timer("timer").stop(metrics.timer("timer").start());
+
+        Assert.assertTrue(metrics.snapshot().getCounters().isEmpty());
+        Assert.assertTrue(metrics.snapshot().getTimers().isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 Lukas Krejci
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package org.revapi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.8.5
+ */
+public class TransformIndexTest {
+
+    private static final String[] CODES = {"java.method.removed", "java.method.added", "java.class.removed",
+            "java.field.removed", "java.method", "java.method.", "java.method.\nremoved", "x", "",
+            "java.annotation.added"};
+
+    @Test
+    public void testMatchesSameAsRegexes() {
+        List<Pattern[]> patterns = Arrays.asList(
+                patterns("^" + Pattern.quote("java.method.removed") + "$"),
+                patterns("java\\.method\\..*", "java\\.class\\.removed"),
+                patterns(".*removed"),
+                patterns("java\\.(field|class)\\.removed"),
+                patterns("(?<kind>java)\\.method\\.added"),
+                patterns("(?<kind>java)\\.annotation\\.added"),
+                patterns("(java)\\.\\1"),
+                patterns(".*"),
+                patterns("\\Qjava.method.removed$"),
+                new Pattern[]{Pattern.compile("JAVA\\.METHOD\\.ADDED", Pattern.CASE_INSENSITIVE)},
+                patterns());
+
+        TransformIndex index = TransformIndex.build(patterns);
+
+        for (String code : CODES) {
+            BitSet expected = new BitSet();
+            for (int i = 0; i < patterns.size(); ++i) {
+                for (Pattern p : patterns.get(i)) {
+                    if (p.matcher(code).matches()) {
+                        expected.set(index.groupOf(patterns.get(i)));
+                        break;
+                    }
+                }
+            }
+
+            Assert.assertEquals("Unexpected matches for '" + code + "'", expected, index.match(code));
+        }
+    }
+
+    @Test
+    public void testReusableForSamePatternsInDifferentOrder() {
+        List<Pattern[]> patterns = Arrays.asList(patterns("a"), patterns("b.*"), patterns("a"));
+        List<Pattern[]> reordered = new ArrayList<>(patterns);
+        reordered.add(0, reordered.remove(2));
+        reordered.add(0, reordered.remove(2));
+
+        TransformIndex index = TransformIndex.build(patterns);
+
+        Assert.assertTrue(index.isBuiltFor(reordered));
+        Assert.assertEquals(index.groupOf(patterns.get(0)), index.groupOf(patterns.get(2)));
+        Assert.assertFalse(index.isBuiltFor(Arrays.asList(patterns("a"), patterns("b"))));
+        Assert.assertEquals(-1, index.groupOf(patterns("c")));
+    }
+
+    private static Pattern[] patterns(String... regexes) {
+        Pattern[] ret = new Pattern[regexes.length];
+        for (int i = 0; i < regexes.length; ++i) {
+            ret[i] = Pattern.compile(regexes[i]);
+        }
+        return ret;
+    }
+}
@@ -16,6 +16,21 @@
 
 package org.revapi.simple;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revapi.API;
+import org.revapi.Archive;
+import org.revapi.Element;
+
 /**
  * @author Lukas Krejci
  * @since 0.1
@@ -24,4 +39,171 @@ public class SimpleElementTest {
     //TODO implement
     //forest construction - i.e. automagic parent assignments
     //searches
+
+    private static final API API = new API(Collections.emptyList(), null);
+
+    @Test
+    public void testFreezeKeepsOrderAndParents() {
+        DummyElement parent = element("p", "c", "a", "b");
+
+        parent.freeze();
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), names(parent.getChildren()));
+        for (Element c : parent.getChildren()) {
+            Assert.assertSame(parent, c.getParent());
+        }
+    }
+
+    @Test
+    public void testFreezeIsRecursive() {
+        DummyElement parent = element("p", "a");
+        DummyElement child = (DummyElement) parent.getChildren().first();
+        add(child, "x", "y");
+
+        parent.freeze();
+
+        Assert.assertEquals(Arrays.asList("x", "y"), names(child.getChildren()));
+        try {
+            add(child, "z");
+            Assert.fail("The children of a descendant of a frozen element should not be modifiable.");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testFrozenChildrenUnmodifiable() {
+        DummyElement parent = element("p", "a", "b");
+        parent.freeze();
+
+        SortedSet<? extends Element> children = parent.getChildren();
+
+        try {
+            children.clear();
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+
+        try {
+            children.remove(children.first());
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+
+        try {
+            children.iterator().remove();
+            Assert.fail();
+        } catch (UnsupportedOperationException | IllegalStateException e) {
+            //expected
+        }
+
+        Assert.assertEquals(2, children.size());
+    }
+
+    @Test
+    public void testFrozenChildrenQueries() {
+        DummyElement parent = element("p", "b", "d", "f", "h");
+        parent.freeze();
+
+        @SuppressWarnings("unchecked")
+        SortedSet<Element> children = (SortedSet<Element>) parent.getChildren();
+
+        Assert.assertTrue(children.contains(new DummyElement("d")));
+        Assert.assertFalse(children.contains(new DummyElement("e")));
+        Assert.assertEquals("b", children.first().toString());
+        Assert.assertEquals("h", children.last().toString());
+
+        Assert.assertEquals(Arrays.asList("d", "f"), names(children.subSet(new DummyElement("c"),
+                new DummyElement("h"))));
+        Assert.assertEquals(Arrays.asList("b", "d"), names(children.headSet(new DummyElement("f"))));
+        Assert.assertEquals(Arrays.asList("f", "h"), names(children.tailSet(new DummyElement("e"))));
+        Assert.assertEquals(Collections.singletonList("f"), names(children.tailSet(new DummyElement("e"))
+                .headSet(new DummyElement("g"))));
+        Assert.assertTrue(children.headSet(new DummyElement("a")).isEmpty());
+
+        Assert.assertEquals(4, children.toArray().length);
+        Assert.assertEquals(4, children.toArray(new Element[0]).length);
+        Assert.assertEquals(new ArrayList<>(children), Arrays.asList(children.toArray()));
+
+        DummyElement leaf = (DummyElement) children.first();
+        Assert.assertTrue(leaf.getChildren().isEmpty());
+        Assert.assertFalse(leaf.iterateOverChildren(Element.class, true, null).hasNext());
+    }
+
+    @Test
+    public void testFrozenForest() {
+        SimpleElementForest forest = new SimpleElementForest(API) {};
+        @SuppressWarnings("unchecked")
+        SortedSet<Element> roots = (SortedSet<Element>) (SortedSet<?>) forest.getRoots();
+        roots.add(element("r2", "b", "a"));
+        roots.add(element("r1", "c"));
+
+        forest.freeze();
+
+        Assert.assertEquals(Arrays.asList("r1", "r2"), names(forest.getRoots()));
+        Assert.assertEquals(Arrays.asList("r1", "c", "r2", "a", "b"),
+                names(forest.search(Element.class, true, null, null)));
+
+        try {
+            roots = (SortedSet<Element>) (SortedSet<?>) forest.getRoots();
+            roots.add(new DummyElement("r3"));
+            Assert.fail("The roots of a frozen forest should not be modifiable.");
+        } catch (UnsupportedOperationException e) {
+            //expected
+        }
+    }
+
+    private static DummyElement element(String name, String... children) {
+        DummyElement ret = new DummyElement(name);
+        add(ret, children);
+        return ret;
+    }
+
+    private static void add(DummyElement parent, String... children) {
+        @SuppressWarnings("unchecked")
+        SortedSet<Element> cs = (SortedSet<Element>) parent.getChildren();
+        for (String c : children) {
+            cs.add(new DummyElement(c));
+        }
+    }
+
+    private static List<String> names(Iterable<? extends Element> elements) {
+        List<String> ret = new ArrayList<>();
+        for (Element e : elements) {
+            ret.add(e.toString());
+        }
+        return ret;
+    }
+
+    private static final class DummyElement extends SimpleElement {
+        private final String name;
+
+        DummyElement(String name) {
+            this.name = name;
+        }
+
+        @Nonnull
+        @Override
+        public API getApi() {
+            return API;
+        }
+
+        @Nullable
+        @Override
+        public Archive getArchive() {
+            return null;
+        }
+
+        @Override
+        public int compareTo(@Nonnull Element o) {
+            return name.compareTo(((DummyElement) o).name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
 }